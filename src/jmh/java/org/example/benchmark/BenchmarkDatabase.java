@@ -0,0 +1,58 @@
+package org.example.benchmark;
+
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.service.FinanceService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Отдельная база H2 для бенчмарков: по файлу на размер (target/jmh-db/financy_<rows>).
+// Заполняется один раз DataGenerator с фиксированным seed (2022-2024 годы) и переиспользуется
+// между запусками; если число строк не совпадает (прерванное заполнение), база пересоздается.
+// Вызывается до первого обращения к DatabaseConnection в форке JMH.
+public final class BenchmarkDatabase {
+    private static final long SEED = 42L;
+
+    private BenchmarkDatabase() {
+    }
+
+    public static void open(int rows, boolean columnar) {
+        Path dir = Paths.get(System.getProperty("benchmark.db.dir", "target/jmh-db")).toAbsolutePath();
+        System.setProperty("db.url", "jdbc:h2:" + dir.resolve("financy_" + rows) + ";DB_CLOSE_DELAY=-1");
+        System.setProperty("analytics.columnar.enabled", String.valueOf(columnar));
+        // Бенчмарк пересчета не должен попадать в кэш отчетов
+        System.setProperty("report.cache.max.entries", "0");
+
+        DatabaseConnection.getInstance().initializeDatabase();
+        TransactionDAO transactionDAO = new TransactionDAO();
+        int existing = transactionDAO.countTransactions();
+        if (existing != rows) {
+            System.out.println("Заполнение базы бенчмарков: " + rows + " транзакций (было " + existing + ")");
+            clear();
+            new DataGenerator(SEED).writeTo(transactionDAO, rows);
+            if (transactionDAO.countTransactions() != rows) {
+                throw new IllegalStateException("Не удалось заполнить базу бенчмарков");
+            }
+        }
+    }
+
+    public static void close() {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    private static void clear() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE transactions");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось очистить базу бенчмарков: " + e.getMessage(), e);
+        }
+        FinanceService service = new FinanceService();
+        service.rebuildRollups();
+        service.close();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.benchmark;
+
+import org.example.dao.DatabaseConnection;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Точка входа benchmarks.jar. Принимает обычные параметры JMH; если файл результата
+// не указан (-rff), пишет JSON в target/jmh-results/financy-<версия>-<время>.json,
+// чтобы результаты разных версий можно было сравнить (например, в JMH Visualizer)
+public class BenchmarkRunner {
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+
+        if (!cmd.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmd.getResult().hasValue()) {
+            String version = DatabaseConnection.getInstance().getProperty("app.version", "dev");
+            Path result = Paths.get("target", "jmh-results",
+                    "financy-" + version + "-" + LocalDateTime.now().format(STAMP) + ".json");
+            Files.createDirectories(result.getParent());
+            options.result(result.toString());
+            System.out.println("Результаты: " + result.toAbsolutePath());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
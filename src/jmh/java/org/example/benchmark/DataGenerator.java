@@ -0,0 +1,294 @@
+package org.example.benchmark;
+
+import org.example.dao.CategoryDAO;
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.model.Category;
+import org.example.model.Money;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Детерминированный генератор транзакций с правдоподобными распределениями.
+// Данные строятся по "домохозяйствам" (их число подбирается под нужное количество строк):
+// у каждого свои зарплата, аренда и привычки, за каждый день периода - зарплата и аванс
+// по числам месяца, ежедневные продукты, поездки по будням, развлечения по выходным,
+// редкие крупные траты с тяжелым хвостом (Парето) и сезонные всплески
+// (декабрь, летние отпуска, сентябрь).
+// Случайность выводится из (seed, домохозяйство, день), поэтому одинаковый seed
+// дает одинаковые данные независимо от размера пачек и порядка записи.
+public class DataGenerator {
+    public static final LocalDate DEFAULT_FROM = LocalDate.of(2022, 1, 1);
+    public static final LocalDate DEFAULT_TO = LocalDate.of(2024, 12, 31);
+
+    private static final int WRITE_CHUNK = 10_000;
+
+    private static final String[] GROCERY_SHOPS = {"Супермаркет", "Магазин у дома", "Рынок", "Гипермаркет", "Пекарня"};
+    private static final String[] TRANSPORT = {"Метро", "Автобус", "Такси", "Электричка"};
+    private static final String[] LEISURE = {"Кино", "Кафе", "Ресторан", "Концерт", "Путешествие"};
+    private static final String[] OTHER = {"Одежда", "Техника", "Подарок", "Ремонт", "Мебель"};
+
+    private final long seed;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Map<String, Category> categories = new HashMap<>();
+
+    public DataGenerator(long seed) {
+        this(seed, DEFAULT_FROM, DEFAULT_TO);
+    }
+
+    // Категории берутся по именам из начальной миграции; отсутствующие - "без категории"
+    public DataGenerator(long seed, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Дата начала позже даты окончания");
+        }
+        this.seed = seed;
+        this.from = from;
+        this.to = to;
+        for (Category category : new CategoryDAO().getAllCategories()) {
+            categories.put(category.getName(), category);
+        }
+    }
+
+    // Ровно count транзакций пачками по chunkSize. Первый проход только считает строки
+    // домохозяйств и берет столько, сколько нужно (у последнего - первые по дате).
+    // Второй проход идет по дням: строки пишутся в порядке дат, как в рабочей базе,
+    // и пачка затрагивает немного строк сводных таблиц
+    public void generate(long count, int chunkSize, Consumer<List<Transaction>> sink) {
+        List<Household> households = new ArrayList<>();
+        List<Transaction> day = new ArrayList<>();
+        long total = 0;
+        long lastLimit = 0;
+        while (total < count) {
+            Household household = new Household(households.size());
+            long produced = 0;
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                day.clear();
+                household.day(date, day);
+                produced += day.size();
+            }
+            if (produced == 0) {
+                throw new IllegalStateException("Домохозяйство без транзакций за период " + from + " - " + to);
+            }
+            households.add(household);
+            lastLimit = Math.min(produced, count - total);
+            total += produced;
+        }
+
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+        long lastEmitted = 0;
+        int last = households.size() - 1;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (int h = 0; h < households.size(); h++) {
+                day.clear();
+                households.get(h).day(date, day);
+                for (Transaction transaction : day) {
+                    if (h == last && lastEmitted++ >= lastLimit) {
+                        break;
+                    }
+                    chunk.add(transaction);
+                    if (chunk.size() == chunkSize) {
+                        sink.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            sink.accept(chunk);
+        }
+    }
+
+    // Транзакции одного домохозяйства за день (может быть пусто)
+    public List<Transaction> generateDay(long household, LocalDate date) {
+        List<Transaction> day = new ArrayList<>();
+        new Household(household).day(date, day);
+        return day;
+    }
+
+    // Запись пакетной вставкой (одна транзакция БД на пачку); возвращает число записанных строк
+    public long writeTo(TransactionDAO transactionDAO, long count) {
+        long started = System.currentTimeMillis();
+        long[] written = {0};
+        generate(count, WRITE_CHUNK, chunk -> {
+            written[0] += transactionDAO.addTransactions(chunk).getInsertedCount();
+            if (written[0] % (WRITE_CHUNK * 50L) < chunk.size() || written[0] == count) {
+                long elapsed = Math.max(1, System.currentTimeMillis() - started);
+                System.out.printf("Записано %d из %d (%.0f строк/с)%n", written[0], count, written[0] * 1000.0 / elapsed);
+            }
+        });
+        return written[0];
+    }
+
+    private long mix(long a, long b) {
+        long z = a * 0x9E3779B97F4A7C15L + b;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private class Household {
+        private final long id;
+        private final long salary;
+        private final long rent;
+        private final double groceryMedian;
+        private final boolean freelancer;
+        private final boolean investor;
+
+        Household(long id) {
+            this.id = id;
+            Random random = new Random(mix(seed, id));
+            this.salary = rubles(logNormal(random, 90_000, 0.5));
+            this.rent = random.nextDouble() < 0.3 ? 0 : rubles(logNormal(random, 35_000, 0.4));
+            this.groceryMedian = logNormal(random, 900, 0.3);
+            this.freelancer = random.nextDouble() < 0.25;
+            this.investor = random.nextDouble() < 0.2;
+        }
+
+        void day(LocalDate date, List<Transaction> out) {
+            Random random = new Random(mix(mix(seed, id), date.toEpochDay()));
+            int dayOfMonth = date.getDayOfMonth();
+            boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+            double season = seasonalFactor(date);
+
+            // Доходы: зарплата 5-го, аванс 20-го, годовая премия в декабре
+            if (dayOfMonth == 5) {
+                out.add(income("Зарплата", salary * 6 / 10, date.atTime(10, 0), "Зарплата"));
+            } else if (dayOfMonth == 20) {
+                out.add(income("Зарплата", salary * 4 / 10, date.atTime(10, 0), "Аванс"));
+            }
+            if (date.getMonth() == Month.DECEMBER && dayOfMonth == 25) {
+                out.add(income("Зарплата", (long) (salary * (0.5 + random.nextDouble())), date.atTime(11, 0), "Годовая премия"));
+            }
+            if (freelancer && random.nextDouble() < 0.06) {
+                out.add(income("Фриланс", rubles(logNormal(random, 15_000, 0.7)), at(date, random, 9, 21), "Заказ"));
+            }
+            if (investor && dayOfMonth == 15 && date.getMonthValue() % 3 == 0) {
+                out.add(income("Инвестиции", rubles(logNormal(random, 5_000, 0.8)), date.atTime(12, 0), "Дивиденды"));
+            }
+
+            // Обязательные расходы
+            if (rent > 0 && dayOfMonth == 1) {
+                out.add(expense("Жилье", rent, date.atTime(9, 0), "Аренда"));
+            }
+
+            // Ежедневные продукты: 1-3 покупки, больше в выходные и перед праздниками
+            int purchases = 1 + (random.nextDouble() < 0.5 ? 1 : 0) + (weekend ? 1 : 0);
+            for (int i = 0; i < purchases; i++) {
+                out.add(expense("Продукты", rubles(logNormal(random, groceryMedian, 0.6) * season),
+                        at(date, random, 8, 22), pick(random, GROCERY_SHOPS)));
+            }
+
+            // Транспорт: две поездки в рабочий день, изредка в выходные
+            if (random.nextDouble() < (weekend ? 0.3 : 0.85)) {
+                int trips = weekend ? 1 : 2;
+                for (int i = 0; i < trips; i++) {
+                    out.add(expense("Транспорт", rubles(50 + random.nextInt(150)), at(date, random, 7, 21),
+                            pick(random, TRANSPORT)));
+                }
+            }
+
+            // Развлечения: чаще в выходные, летом отпуска с редкими крупными тратами
+            boolean summer = date.getMonth() == Month.JULY || date.getMonth() == Month.AUGUST;
+            if (random.nextDouble() < (weekend ? 0.6 : 0.15)) {
+                double amount = logNormal(random, 1_500, 0.8) * season * (summer ? 1.8 : 1.0);
+                if (summer && random.nextDouble() < 0.02) {
+                    amount += pareto(random, 20_000, 1.5, 1_000_000);
+                }
+                out.add(expense("Развлечения", rubles(amount), at(date, random, 12, 23), pick(random, LEISURE)));
+            }
+
+            // Редкие траты с длинным хвостом
+            if (random.nextDouble() < 0.04) {
+                out.add(expense("Здоровье", rubles(pareto(random, 500, 1.3, 500_000)), at(date, random, 9, 20), "Аптека"));
+            }
+            double educationChance = date.getMonth() == Month.SEPTEMBER ? 0.1 : 0.01;
+            if (random.nextDouble() < educationChance) {
+                out.add(expense("Образование", rubles(logNormal(random, 3_000, 1.0)), at(date, random, 9, 20), "Курсы"));
+            }
+            if (random.nextDouble() < 0.15) {
+                out.add(expense("Прочее", rubles(pareto(random, 200, 1.1, 1_000_000) * season),
+                        at(date, random, 9, 22), pick(random, OTHER)));
+            }
+        }
+
+        private Transaction income(String category, long minor, LocalDateTime date, String description) {
+            return transaction(TransactionType.INCOME, category, minor, date, description);
+        }
+
+        private Transaction expense(String category, long minor, LocalDateTime date, String description) {
+            return transaction(TransactionType.EXPENSE, category, minor, date, description);
+        }
+    }
+
+    private Transaction transaction(TransactionType type, String category, long minor,
+                                    LocalDateTime date, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setType(type);
+        transaction.setCategory(categories.get(category));
+        transaction.setAmount(Money.ofMinor(Math.max(1, minor)));
+        transaction.setDate(date);
+        transaction.setDescription(description);
+        return transaction;
+    }
+
+    // Предновогодние недели и первые дни января
+    private static double seasonalFactor(LocalDate date) {
+        if (date.getMonth() == Month.DECEMBER && date.getDayOfMonth() >= 15) {
+            return 1.6;
+        }
+        if (date.getMonth() == Month.JANUARY && date.getDayOfMonth() <= 8) {
+            return 1.3;
+        }
+        return 1.0;
+    }
+
+    private static double logNormal(Random random, double median, double sigma) {
+        return median * Math.exp(sigma * random.nextGaussian());
+    }
+
+    private static double pareto(Random random, double scale, double alpha, double cap) {
+        return Math.min(cap, scale / Math.pow(1 - random.nextDouble(), 1 / alpha));
+    }
+
+    // Рубли в копейки
+    private static long rubles(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static LocalDateTime at(LocalDate date, Random random, int fromHour, int toHour) {
+        return date.atTime(fromHour + random.nextInt(toHour - fromHour), random.nextInt(60), random.nextInt(60));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Запуск: DataGenerator <count> [seed] [from yyyy-MM-dd] [to yyyy-MM-dd];
+    // база - из application.properties или -Ddb.url
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Использование: DataGenerator <количество> [seed] [с yyyy-MM-dd] [по yyyy-MM-dd]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0]);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+        LocalDate from = args.length > 2 ? LocalDate.parse(args[2]) : DEFAULT_FROM;
+        LocalDate to = args.length > 3 ? LocalDate.parse(args[3]) : DEFAULT_TO;
+
+        DatabaseConnection.getInstance().initializeDatabase();
+        long written = new DataGenerator(seed, from, to).writeTo(new TransactionDAO(), count);
+        DatabaseConnection.getInstance().closeConnection();
+        System.exit(written == count ? 0 : 1);
+    }
+}
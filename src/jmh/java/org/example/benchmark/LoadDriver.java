@@ -0,0 +1,336 @@
+package org.example.benchmark;
+
+import org.example.dao.DatabaseConnection;
+import org.example.model.Transaction;
+import org.example.service.FinanceService;
+import org.example.service.ReportSpec;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный прогон: смешанные чтения и записи через один общий FinanceService
+// из нескольких потоков, как у панелей интерфейса. Первые секунды прогрева не учитываются;
+// по каждой операции выводятся вызовы, ошибки, пропускная способность и перцентили задержки.
+// Транзакции, вставленные прогоном, удаляются в конце.
+// Параметры: --threads=8 --duration=60 --warmup=10 --writes=10 --seed=42
+public class LoadDriver {
+
+    private enum Operation {
+        MONTH_TRANSACTIONS("Транзакции за месяц", 20),
+        FIRST_PAGE("Первая страница", 20),
+        MONTH_TOTALS("Итоги за месяц", 15),
+        RUNNING_TOTALS("Итоги за все время", 15),
+        REPORT("Отчет за месяц", 12),
+        EXPENSES_BY_CATEGORY("Расходы по категориям", 8),
+        ADD("Добавление", 0),
+        DELETE("Удаление", 0);
+
+        private final String displayName;
+        private final int readWeight;
+
+        Operation(String displayName, int readWeight) {
+            this.displayName = displayName;
+            this.readWeight = readWeight;
+        }
+    }
+
+    private static final int PAGE_SIZE = 200;
+
+    private final FinanceService financeService;
+    private final DataGenerator generator;
+    private final int threads;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final double writePercent;
+    private final long seed;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private final double[] cumulativeWeights = new double[Operation.values().length];
+    private final Queue<Long> insertedIds = new ConcurrentLinkedQueue<>();
+
+    public LoadDriver(FinanceService financeService, int threads, long durationSeconds, long warmupSeconds,
+                      double writePercent, long seed) {
+        this.financeService = financeService;
+        this.generator = new DataGenerator(seed);
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.writePercent = writePercent;
+        this.seed = seed;
+        this.from = DataGenerator.DEFAULT_FROM;
+        this.to = DataGenerator.DEFAULT_TO;
+
+        // Чтения делят (100 - writes)% пропорционально весам, записи - 2:1 вставка/удаление
+        int readTotal = 0;
+        for (Operation operation : Operation.values()) {
+            readTotal += operation.readWeight;
+        }
+        double sum = 0;
+        for (Operation operation : Operation.values()) {
+            double weight;
+            if (operation == Operation.ADD) {
+                weight = writePercent * 2 / 3;
+            } else if (operation == Operation.DELETE) {
+                weight = writePercent / 3;
+            } else {
+                weight = (100 - writePercent) * operation.readWeight / readTotal;
+            }
+            sum += weight;
+            cumulativeWeights[operation.ordinal()] = sum;
+        }
+    }
+
+    Map<Operation, Stats> run() throws Exception {
+        // Колоночное хранилище и кэши загружаются до замера
+        financeService.getTotalsForDays(null, null);
+        financeService.getRunningTotals();
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Recorder[] recorders = new Recorder[threads];
+        Future<?>[] futures = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            Recorder recorder = new Recorder();
+            Random random = new Random(seed * 31 + i);
+            recorders[i] = recorder;
+            futures[i] = executor.submit(() -> work(random, recorder, measureFrom, end));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Map<Operation, Stats> result = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            result.put(operation, Stats.merge(recorders, operation));
+        }
+        return result;
+    }
+
+    // Удаляет транзакции, которые прогон вставил и не успел удалить
+    int cleanUp() {
+        int removed = 0;
+        Long id;
+        while ((id = insertedIds.poll()) != null) {
+            if (financeService.deleteTransaction(id)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void work(Random random, Recorder recorder, long measureFrom, long end) {
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Operation operation = pick(random);
+            if (operation == Operation.DELETE && insertedIds.isEmpty()) {
+                operation = Operation.ADD;
+            }
+            boolean ok;
+            try {
+                ok = execute(operation, random);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            long elapsed = System.nanoTime() - now;
+            if (now >= measureFrom) {
+                recorder.record(operation, elapsed, ok);
+            }
+        }
+    }
+
+    private Operation pick(Random random) {
+        double value = random.nextDouble() * 100;
+        for (Operation operation : Operation.values()) {
+            if (value < cumulativeWeights[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        return Operation.MONTH_TRANSACTIONS;
+    }
+
+    private boolean execute(Operation operation, Random random) {
+        LocalDate monthStart = randomDay(random).withDayOfMonth(1);
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+        switch (operation) {
+            case MONTH_TRANSACTIONS:
+                financeService.getTransactionsByDateRange(monthStart.atStartOfDay(), monthEnd.atTime(23, 59, 59));
+                return true;
+            case FIRST_PAGE:
+                return financeService.getTransactionPage(monthStart.atStartOfDay(), monthEnd.plusDays(1).atStartOfDay(),
+                        null, PAGE_SIZE) != null;
+            case MONTH_TOTALS:
+                financeService.getTotalsForDays(monthStart, monthEnd);
+                return true;
+            case RUNNING_TOTALS:
+                return financeService.getRunningTotals() != null;
+            case REPORT:
+                return financeService.generateReport(new ReportSpec(monthStart, monthEnd, null)) != null;
+            case EXPENSES_BY_CATEGORY:
+                financeService.getExpensesByCategory();
+                return true;
+            case ADD:
+                Transaction transaction = randomTransaction(random);
+                if (!financeService.addTransaction(transaction)) {
+                    return false;
+                }
+                insertedIds.add(transaction.getId());
+                return true;
+            case DELETE:
+                Long id = insertedIds.poll();
+                return id == null || financeService.deleteTransaction(id);
+            default:
+                throw new IllegalArgumentException("Неизвестная операция: " + operation);
+        }
+    }
+
+    // Транзакция из генератора для случайного домохозяйства и дня
+    private Transaction randomTransaction(Random random) {
+        while (true) {
+            List<Transaction> day = generator.generateDay(random.nextInt(1_000_000), randomDay(random));
+            if (!day.isEmpty()) {
+                return day.get(random.nextInt(day.size()));
+            }
+        }
+    }
+
+    private LocalDate randomDay(Random random) {
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        return from.plusDays((long) (random.nextDouble() * days));
+    }
+
+    void printReport(Map<Operation, Stats> result) {
+        System.out.printf("Потоков %d, замер %d с (прогрев %d с), записи %.0f%%%n",
+                threads, durationSeconds, warmupSeconds, writePercent);
+        System.out.printf("%-24s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Операция", "Вызовов", "Ошибок", "оп/с", "p50 мс", "p90 мс", "p99 мс", "p99.9 мс", "макс мс");
+        Stats total = new Stats(new long[0], 0, 0);
+        for (Map.Entry<Operation, Stats> entry : result.entrySet()) {
+            if (entry.getValue().count() > 0) {
+                print(entry.getKey().displayName, entry.getValue());
+                total = total.plus(entry.getValue());
+            }
+        }
+        print("Всего", total);
+    }
+
+    private void print(String name, Stats stats) {
+        System.out.printf("%-24s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                name, stats.count(), stats.errors, stats.count() / (double) durationSeconds,
+                stats.percentileMillis(50), stats.percentileMillis(90), stats.percentileMillis(99),
+                stats.percentileMillis(99.9), stats.percentileMillis(100));
+    }
+
+    // Задержки одного потока по операциям; без синхронизации, сливаются после завершения
+    private static class Recorder {
+        private final long[][] latencies = new long[Operation.values().length][1024];
+        private final int[] sizes = new int[Operation.values().length];
+        private final long[] errors = new long[Operation.values().length];
+
+        void record(Operation operation, long nanos, boolean ok) {
+            int index = operation.ordinal();
+            if (sizes[index] == latencies[index].length) {
+                latencies[index] = Arrays.copyOf(latencies[index], sizes[index] * 2);
+            }
+            latencies[index][sizes[index]++] = nanos;
+            if (!ok) {
+                errors[index]++;
+            }
+        }
+    }
+
+    private static class Stats {
+        private final long[] sortedNanos;
+        private final int size;
+        private final long errors;
+
+        Stats(long[] sortedNanos, int size, long errors) {
+            this.sortedNanos = sortedNanos;
+            this.size = size;
+            this.errors = errors;
+        }
+
+        static Stats merge(Recorder[] recorders, Operation operation) {
+            int index = operation.ordinal();
+            int size = 0;
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                size += recorder.sizes[index];
+                errors += recorder.errors[index];
+            }
+            long[] merged = new long[size];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies[index], 0, merged, offset, recorder.sizes[index]);
+                offset += recorder.sizes[index];
+            }
+            Arrays.sort(merged);
+            return new Stats(merged, size, errors);
+        }
+
+        Stats plus(Stats other) {
+            long[] merged = Arrays.copyOf(sortedNanos, size + other.size);
+            System.arraycopy(other.sortedNanos, 0, merged, size, other.size);
+            Arrays.sort(merged);
+            return new Stats(merged, size + other.size, errors + other.errors);
+        }
+
+        int count() {
+            return size;
+        }
+
+        // Ближайший ранг; 100 - максимум
+        double percentileMillis(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * size);
+            return sortedNanos[Math.min(size, Math.max(1, rank)) - 1] / 1_000_000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                System.out.println("Использование: LoadDriver [--threads=8] [--duration=60] [--warmup=10] " +
+                        "[--writes=10] [--seed=42]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        DatabaseConnection.getInstance().initializeDatabase();
+        FinanceService financeService = new FinanceService();
+        LoadDriver driver = new LoadDriver(financeService,
+                Integer.parseInt(options.getOrDefault("threads", "8")),
+                Long.parseLong(options.getOrDefault("duration", "60")),
+                Long.parseLong(options.getOrDefault("warmup", "10")),
+                Double.parseDouble(options.getOrDefault("writes", "10")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+
+        Map<Operation, Stats> result = driver.run();
+        driver.printReport(result);
+        System.out.println("Удалено вставленных транзакций: " + driver.cleanUp());
+
+        financeService.close();
+        DatabaseConnection.getInstance().closeConnection();
+        System.exit(0);
+    }
+}
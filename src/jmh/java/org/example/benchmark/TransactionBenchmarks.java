@@ -0,0 +1,130 @@
+package org.example.benchmark;
+
+import org.example.dao.TransactionDAO;
+import org.example.model.AmountSummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+import org.example.service.FinanceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Основные пути чтения и записи на базе заданного размера.
+// Размер и режим аналитики задаются параметрами: -p rows=10000000 -p columnar=true.
+// getAllTransactions на миллионах строк требует соответствующего -Xmx.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TransactionBenchmarks {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    // true - суммы считаются по колоночному хранилищу, false - по БД и сводным таблицам
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private TransactionDAO transactionDAO;
+    private FinanceService financeService;
+
+    // Месяц и год в середине данных
+    private final LocalDateTime monthStart = LocalDate.of(2023, 6, 1).atStartOfDay();
+    private final LocalDateTime monthEnd = LocalDate.of(2023, 6, 30).atTime(23, 59, 59);
+    private final LocalDate yearFrom = LocalDate.of(2023, 1, 1);
+    private final LocalDate yearTo = LocalDate.of(2023, 12, 31);
+
+    // id транзакций, вставленных бенчмарком addTransaction за итерацию
+    private final List<Long> insertedIds = new ArrayList<>();
+    private long insertCounter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.open(rows, columnar);
+        transactionDAO = new TransactionDAO();
+        financeService = new FinanceService();
+        // Загрузка колоночного хранилища не должна попадать в замер
+        financeService.getTotalsForDays(null, null);
+    }
+
+    // Вставленные строки удаляются вне замера, чтобы размер базы не рос
+    @TearDown(Level.Iteration)
+    public void removeInserted() {
+        for (Long id : insertedIds) {
+            transactionDAO.deleteTransaction(id);
+        }
+        insertedIds.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        financeService.close();
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsByDateRange() {
+        return transactionDAO.getTransactionsByDateRange(monthStart, monthEnd);
+    }
+
+    @Benchmark
+    public List<Transaction> getAllTransactions() {
+        return transactionDAO.getAllTransactions();
+    }
+
+    @Benchmark
+    public boolean addTransaction() {
+        Transaction transaction = new Transaction();
+        transaction.setType(TransactionType.EXPENSE);
+        transaction.setAmount(Money.ofMinor(100 + insertCounter % 100_000));
+        transaction.setDate(monthStart.plusMinutes(insertCounter++ % 40_000));
+        transaction.setDescription("bench insert");
+        boolean added = transactionDAO.addTransaction(transaction);
+        if (added) {
+            insertedIds.add(transaction.getId());
+        }
+        return added;
+    }
+
+    @Benchmark
+    public Map<String, Money> getExpensesByCategory() {
+        return financeService.getExpensesByCategory();
+    }
+
+    @Benchmark
+    public Map<TransactionType, AmountSummary> getTotalsForMonth() {
+        return financeService.getTotalsForDays(monthStart.toLocalDate(), monthEnd.toLocalDate());
+    }
+
+    @Benchmark
+    public List<PeriodSummary> getMonthlyTotalsForYear() {
+        return financeService.getPeriodTotals(PeriodUnit.MONTH, yearFrom, yearTo);
+    }
+
+    @Benchmark
+    public List<PeriodSummary> getDailyTotalsForYear() {
+        return financeService.getPeriodTotals(PeriodUnit.DAY, yearFrom, yearTo);
+    }
+}
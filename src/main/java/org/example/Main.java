@@ -1,13 +1,41 @@
 package org.example;
 
 import org.example.dao.DatabaseConnection;
+import org.example.service.FinanceService;
 import org.example.ui.MainFrame;
 import javax.swing.*;
+import java.util.Arrays;
 
 public class Main {
     public static void main(String[] args) {
-        // Инициализация базы данных
-        DatabaseConnection.getInstance().initializeDatabase();
+        // Инициализация базы данных; без актуальной схемы приложение не запускается
+        try {
+            DatabaseConnection.getInstance().initializeDatabase();
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+            DatabaseConnection.getInstance().closeConnection();
+            System.exit(1);
+        }
+
+        // Пересчет сводных таблиц без запуска интерфейса
+        if (Arrays.asList(args).contains("--rebuild-rollups")) {
+            FinanceService service = new FinanceService();
+            boolean rebuilt = service.rebuildRollups();
+            service.close();
+            System.out.println(rebuilt ? "Сводные таблицы пересчитаны" : "Не удалось пересчитать сводные таблицы");
+            DatabaseConnection.getInstance().closeConnection();
+            System.exit(rebuilt ? 0 : 1);
+        }
+
+        // Проверка итогов за все время по таблице transactions
+        if (Arrays.asList(args).contains("--verify-totals")) {
+            FinanceService service = new FinanceService();
+            boolean consistent = service.verifyRunningTotals();
+            service.close();
+            System.out.println(consistent ? "Итоги совпадают с транзакциями" : "Итоги расходятся с транзакциями");
+            DatabaseConnection.getInstance().closeConnection();
+            System.exit(consistent ? 0 : 1);
+        }
 
         // Запуск GUI в Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
@@ -17,7 +45,8 @@ public class Main {
                 e.printStackTrace();
             }
 
-            MainFrame mainFrame = new MainFrame();
+            // Один сервис на все панели: изменения в одной вкладке видны остальным
+            MainFrame mainFrame = new MainFrame(new FinanceService());
             mainFrame.setVisible(true);
         });
     }
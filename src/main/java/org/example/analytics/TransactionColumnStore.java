@@ -0,0 +1,562 @@
+package org.example.analytics;
+
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.dao.TransactionRowVisitor;
+import org.example.dao.TransactionWriteListener;
+import org.example.model.AmountSummary;
+import org.example.model.Category;
+import org.example.model.CategorySummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Колоночное хранилище транзакций для аналитики. Каждое поле лежит в своем
+// примитивном массиве: id, дата (секунды от эпохи, локальное время как UTC),
+// сумма в копейках (как Money), id категории (0 - без категории) и тип битом (1 - доход).
+// Строки упорядочены по (дата, id), поэтому диапазон дат находится бинарным
+// поиском, а агрегаты считаются одним проходом по массивам без создания объектов.
+// Хранилище загружается из БД один раз и поддерживается в актуальном состоянии
+// через TransactionWriteListener, то есть видит только записи этого процесса:
+// строки, добавленные другим процессом через AUTO_SERVER, появятся лишь после reload().
+// Поэтому по умолчанию хранилище выключено (analytics.columnar.enabled).
+public class TransactionColumnStore implements TransactionWriteListener {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long SECONDS_PER_DAY = 86_400;
+    // Неудачная загрузка повторяется не чаще одного раза за интервал
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static TransactionColumnStore instance;
+
+    private final TransactionDAO transactionDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] epochSeconds = new long[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] categoryIds = new int[INITIAL_CAPACITY];
+    private long[] incomeBits = new long[INITIAL_CAPACITY / 64];
+    private int size;
+    private int maxCategoryId;
+    private boolean loaded;
+
+    // Пока идет загрузка, события записи копятся здесь (null - загрузки нет)
+    private List<Runnable> pendingEvents;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private volatile boolean loadFailed;
+    private volatile long loadFailedAt;
+
+    public TransactionColumnStore(TransactionDAO transactionDAO) {
+        this.transactionDAO = transactionDAO;
+    }
+
+    // Общий экземпляр: подписывается на изменения до загрузки, чтобы не потерять
+    // записи, зафиксированные во время чтения. Загружается при первом ensureLoaded
+    public static synchronized TransactionColumnStore getInstance() {
+        if (instance == null) {
+            instance = new TransactionColumnStore(new TransactionDAO());
+            TransactionDAO.addWriteListener(instance);
+        }
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(
+                DatabaseConnection.getInstance().getProperty("analytics.columnar.enabled", "false"));
+    }
+
+    // true, если хранилище готово к запросам. Первый вызов загружает его; пока идет
+    // загрузка в другом потоке или не прошел RETRY_INTERVAL после сбоя, сразу false
+    // (вызывающий считает по БД)
+    public boolean ensureLoaded() {
+        if (isLoaded()) {
+            return true;
+        }
+        if (loadFailed && System.nanoTime() - loadFailedAt < RETRY_INTERVAL_NANOS) {
+            return false;
+        }
+        return reload();
+    }
+
+    // Таблица читается без блокировки, чтобы фиксирующие запись потоки не ждали
+    // полного сканирования. События записи за это время копятся и применяются
+    // к загруженным данным: повторное добавление и удаление отсутствующей строки
+    // ничего не меняют, поэтому событие, уже попавшее в скан, безопасно.
+    // Одновременно идет не больше одной загрузки, второй вызов возвращает false
+    public boolean reload() {
+        if (!reloading.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            lock.writeLock().lock();
+            try {
+                pendingEvents = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TransactionColumnStore fresh = new TransactionColumnStore(transactionDAO);
+            boolean scanned = transactionDAO.scanRows(null, null, fresh::insertRow);
+
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    ids = fresh.ids;
+                    epochSeconds = fresh.epochSeconds;
+                    amounts = fresh.amounts;
+                    categoryIds = fresh.categoryIds;
+                    incomeBits = fresh.incomeBits;
+                    size = fresh.size;
+                    maxCategoryId = fresh.maxCategoryId;
+                    loaded = true;
+                }
+                // При сбое события применяются к прежним данным, если они были
+                List<Runnable> events = pendingEvents;
+                pendingEvents = null;
+                for (Runnable event : events) {
+                    event.run();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            loadFailed = !scanned;
+            loadFailedAt = System.nanoTime();
+            return scanned;
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Примерный объем памяти под колонки
+    public long getMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) ids.length * (8 + 8 + 8 + 4) + (long) incomeBits.length * 8;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- Синхронизация с БД ----------
+
+    @Override
+    public void transactionsAdded(List<Transaction> transactions) {
+        // Пакет сортируется и вливается с конца за один проход:
+        // вставка в конец (обычный случай) сдвигает только новые строки
+        Transaction[] batch = transactions.toArray(new Transaction[0]);
+        Arrays.sort(batch, Comparator.comparingLong((Transaction t) -> toEpochSecond(t.getDate()))
+                .thenComparingLong(Transaction::getId));
+
+        applyOrDefer(() -> applyAdded(batch));
+    }
+
+    @Override
+    public void transactionDeleted(Transaction transaction) {
+        applyOrDefer(() -> applyDeleted(transaction));
+    }
+
+    @Override
+    public void categoryDeleted(long categoryId) {
+        applyOrDefer(() -> applyCategoryDeleted(categoryId));
+    }
+
+    private void applyOrDefer(Runnable event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            } else {
+                event.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Методы apply* вызываются под блокировкой записи
+    private void applyAdded(Transaction[] batch) {
+        int count = 0;
+        for (Transaction transaction : batch) {
+            long second = toEpochSecond(transaction.getDate());
+            if (indexOf(second, transaction.getId()) < 0) {
+                batch[count++] = transaction;
+            }
+        }
+        mergeSorted(batch, count);
+    }
+
+    private void applyDeleted(Transaction transaction) {
+        int index = indexOf(toEpochSecond(transaction.getDate()), transaction.getId());
+        if (index < 0) {
+            index = linearIndexOf(transaction.getId());
+        }
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    private void applyCategoryDeleted(long categoryId) {
+        int id = Math.toIntExact(categoryId);
+        for (int i = 0; i < size; i++) {
+            if (categoryIds[i] == id) {
+                categoryIds[i] = 0;
+            }
+        }
+    }
+
+    // ---------- Аналитические запросы (границы включительные, null - без ограничения) ----------
+
+    public Map<TransactionType, AmountSummary> getTotalsByType(LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            long incomeCount = 0, incomeSum = 0, incomeMin = Long.MAX_VALUE, incomeMax = Long.MIN_VALUE;
+            long expenseCount = 0, expenseSum = 0, expenseMin = Long.MAX_VALUE, expenseMax = Long.MIN_VALUE;
+
+            for (int i = startIndex(start), to = endIndex(end); i < to; i++) {
+                long amount = amounts[i];
+                if (isIncome(i)) {
+                    incomeCount++;
+                    incomeSum = Math.addExact(incomeSum, amount);
+                    incomeMin = Math.min(incomeMin, amount);
+                    incomeMax = Math.max(incomeMax, amount);
+                } else {
+                    expenseCount++;
+                    expenseSum = Math.addExact(expenseSum, amount);
+                    expenseMin = Math.min(expenseMin, amount);
+                    expenseMax = Math.max(expenseMax, amount);
+                }
+            }
+
+            Map<TransactionType, AmountSummary> result = new EnumMap<>(TransactionType.class);
+            if (incomeCount > 0) {
+                result.put(TransactionType.INCOME, toSummary(incomeCount, incomeSum, incomeMin, incomeMax));
+            }
+            if (expenseCount > 0) {
+                result.put(TransactionType.EXPENSE, toSummary(expenseCount, expenseSum, expenseMin, expenseMax));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Суммы по категориям, по убыванию; categories - справочник для имен (id -> категория)
+    public List<CategorySummary> getTotalsByCategory(TransactionType type, LocalDateTime start,
+                                                     LocalDateTime end, Map<Long, Category> categories) {
+        lock.readLock().lock();
+        try {
+            boolean income = type == TransactionType.INCOME;
+            long[] counts = new long[maxCategoryId + 1];
+            long[] sums = new long[maxCategoryId + 1];
+            long[] mins = new long[maxCategoryId + 1];
+            long[] maxs = new long[maxCategoryId + 1];
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxs, Long.MIN_VALUE);
+
+            for (int i = startIndex(start), to = endIndex(end); i < to; i++) {
+                if (isIncome(i) != income) {
+                    continue;
+                }
+                int category = categoryIds[i];
+                long amount = amounts[i];
+                counts[category]++;
+                sums[category] = Math.addExact(sums[category], amount);
+                mins[category] = Math.min(mins[category], amount);
+                maxs[category] = Math.max(maxs[category], amount);
+            }
+
+            List<CategorySummary> result = new ArrayList<>();
+            for (int category = 0; category < counts.length; category++) {
+                if (counts[category] > 0) {
+                    result.add(new CategorySummary(category == 0 ? null : categories.get((long) category),
+                            type, toSummary(counts[category], sums[category], mins[category], maxs[category])));
+                }
+            }
+            result.sort(Comparator.comparing((CategorySummary row) -> row.getSummary().getTotal()).reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Суммы по периодам (по возрастанию), пустые периоды пропускаются.
+    // Границы периода переводятся в индексы бинарным поиском: одна дата на период, а не на строку.
+    public List<PeriodSummary> getTotalsByPeriod(PeriodUnit unit, LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            List<PeriodSummary> result = new ArrayList<>();
+            int to = endIndex(end);
+            int i = startIndex(start);
+            while (i < to) {
+                LocalDate periodStart = unit.truncate(LocalDate.ofEpochDay(
+                        Math.floorDiv(epochSeconds[i], SECONDS_PER_DAY)));
+                int periodEnd = Math.min(to,
+                        lowerBound(unit.next(periodStart).toEpochDay() * SECONDS_PER_DAY));
+
+                long incomeCount = 0, incomeSum = 0, incomeMin = Long.MAX_VALUE, incomeMax = Long.MIN_VALUE;
+                long expenseCount = 0, expenseSum = 0, expenseMin = Long.MAX_VALUE, expenseMax = Long.MIN_VALUE;
+                for (; i < periodEnd; i++) {
+                    long amount = amounts[i];
+                    if (isIncome(i)) {
+                        incomeCount++;
+                        incomeSum = Math.addExact(incomeSum, amount);
+                        incomeMin = Math.min(incomeMin, amount);
+                        incomeMax = Math.max(incomeMax, amount);
+                    } else {
+                        expenseCount++;
+                        expenseSum = Math.addExact(expenseSum, amount);
+                        expenseMin = Math.min(expenseMin, amount);
+                        expenseMax = Math.max(expenseMax, amount);
+                    }
+                }
+
+                if (incomeCount > 0) {
+                    result.add(new PeriodSummary(periodStart, unit, TransactionType.INCOME,
+                            toSummary(incomeCount, incomeSum, incomeMin, incomeMax)));
+                }
+                if (expenseCount > 0) {
+                    result.add(new PeriodSummary(periodStart, unit, TransactionType.EXPENSE,
+                            toSummary(expenseCount, expenseSum, expenseMin, expenseMax)));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Обход строк периода по возрастанию (дата, id) под блокировкой чтения:
+    // построитель отчета собирает все метрики за один проход по массивам
+    public void forEachRow(LocalDateTime start, LocalDateTime end, TransactionRowVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            int to = endIndex(end);
+            for (int i = startIndex(start); i < to; i++) {
+                visitor.visit(ids[i], isIncome(i), amounts[i], categoryIds[i], epochSeconds[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- Внутреннее устройство ----------
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static AmountSummary toSummary(long count, long sum, long min, long max) {
+        return new AmountSummary(count, Money.ofMinor(sum), Money.ofMinor(min), Money.ofMinor(max));
+    }
+
+    private boolean isIncome(int index) {
+        return (incomeBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void setIncome(int index, boolean income) {
+        if (income) {
+            incomeBits[index >>> 6] |= 1L << index;
+        } else {
+            incomeBits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    // Число строк периода [start, end): конец не входит, null - без ограничения.
+    // Даты хранятся с точностью до секунды, поэтому границы должны быть целыми секундами
+    // (для периода из дней - полночь), тогда результат совпадает с SQL "date >= ? AND date < ?"
+    public int countInPeriod(LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            int to = end == null ? size : lowerBound(toEpochSecond(end));
+            return Math.max(0, to - startIndex(start));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int startIndex(LocalDateTime start) {
+        return start == null ? 0 : lowerBound(toEpochSecond(start));
+    }
+
+    private int endIndex(LocalDateTime end) {
+        return end == null ? size : lowerBound(toEpochSecond(end) + 1);
+    }
+
+    // Первая строка с датой >= second
+    private int lowerBound(long second) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochSeconds[middle] < second) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Первая строка с ключом >= (second, id)
+    private int position(long second, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochSeconds[middle] < second || (epochSeconds[middle] == second && ids[middle] < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(long second, long id) {
+        int index = position(second, id);
+        return index < size && epochSeconds[index] == second && ids[index] == id ? index : -1;
+    }
+
+    private int linearIndexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Строка из БД приходит по порядку (дата, id) с точностью до долей секунды,
+    // поэтому почти всегда дописывается в конец
+    private void insertRow(long id, boolean income, long amountMinor, long categoryId, long epochSecond) {
+        ensureCapacity(size + 1);
+        int index = size;
+        if (size > 0 && (epochSeconds[size - 1] > epochSecond
+                || (epochSeconds[size - 1] == epochSecond && ids[size - 1] > id))) {
+            index = position(epochSecond, id);
+            shiftRight(index);
+        }
+        set(index, id, epochSecond, amountMinor, Math.toIntExact(categoryId), income);
+        size++;
+    }
+
+    private void mergeSorted(Transaction[] batch, int count) {
+        ensureCapacity(size + count);
+        int read = size - 1;
+        int write = size + count - 1;
+        for (int b = count - 1; b >= 0; b--) {
+            Transaction transaction = batch[b];
+            long second = toEpochSecond(transaction.getDate());
+            long id = transaction.getId();
+            while (read >= 0 && (epochSeconds[read] > second
+                    || (epochSeconds[read] == second && ids[read] > id))) {
+                move(read--, write--);
+            }
+            int categoryId = transaction.getCategory() != null && transaction.getCategory().getId() != null
+                    ? Math.toIntExact(transaction.getCategory().getId()) : 0;
+            set(write--, id, second, transaction.getAmount().getMinorUnits(), categoryId,
+                    transaction.getType() == TransactionType.INCOME);
+        }
+        size += count;
+    }
+
+    private void set(int index, long id, long second, long amount, int categoryId, boolean income) {
+        ids[index] = id;
+        epochSeconds[index] = second;
+        amounts[index] = amount;
+        categoryIds[index] = categoryId;
+        setIncome(index, income);
+        maxCategoryId = Math.max(maxCategoryId, categoryId);
+    }
+
+    private void move(int from, int to) {
+        ids[to] = ids[from];
+        epochSeconds[to] = epochSeconds[from];
+        amounts[to] = amounts[from];
+        categoryIds[to] = categoryIds[from];
+        setIncome(to, isIncome(from));
+    }
+
+    // Освобождает позицию index, сдвигая хвост на одну строку
+    private void shiftRight(int index) {
+        int length = size - index;
+        System.arraycopy(ids, index, ids, index + 1, length);
+        System.arraycopy(epochSeconds, index, epochSeconds, index + 1, length);
+        System.arraycopy(amounts, index, amounts, index + 1, length);
+        System.arraycopy(categoryIds, index, categoryIds, index + 1, length);
+
+        // Сдвиг битов: старшие слова целиком, затем слово с позицией index
+        int word = index >>> 6;
+        for (int w = size >>> 6; w > word; w--) {
+            incomeBits[w] = (incomeBits[w] << 1) | (incomeBits[w - 1] >>> 63);
+        }
+        long lowMask = (1L << index) - 1;
+        long bits = incomeBits[word];
+        incomeBits[word] = (bits & lowMask) | ((bits & ~lowMask) << 1);
+    }
+
+    private void removeAt(int index) {
+        int length = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, length);
+        System.arraycopy(epochSeconds, index + 1, epochSeconds, index, length);
+        System.arraycopy(amounts, index + 1, amounts, index, length);
+        System.arraycopy(categoryIds, index + 1, categoryIds, index, length);
+
+        int word = index >>> 6;
+        int lastWord = (size - 1) >>> 6;
+        long lowMask = (1L << index) - 1;
+        long bits = incomeBits[word];
+        incomeBits[word] = (bits & lowMask) | ((bits >>> 1) & ~lowMask);
+        for (int w = word; w < lastWord; w++) {
+            incomeBits[w] |= incomeBits[w + 1] << 63;
+            incomeBits[w + 1] >>>= 1;
+        }
+        size--;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        incomeBits = Arrays.copyOf(incomeBits, (capacity + 63) / 64);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Результат пакетной вставки: идентификаторы в порядке входных строк
+// (null для строк, которые не удалось вставить) и причины ошибок по индексам строк
+public class BatchInsertResult {
+    private final List<Long> ids;
+    private final Map<Integer, String> failures;
+
+    public BatchInsertResult(List<Long> ids, Map<Integer, String> failures) {
+        this.ids = Collections.unmodifiableList(ids);
+        this.failures = Collections.unmodifiableMap(failures);
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public Map<Integer, String> getFailures() {
+        return failures;
+    }
+
+    public boolean isInserted(int index) {
+        return ids.get(index) != null;
+    }
+
+    public int getInsertedCount() {
+        return ids.size() - failures.size();
+    }
+
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "Вставлено: " + getInsertedCount() + ", с ошибками: " + getFailedCount();
+    }
+}
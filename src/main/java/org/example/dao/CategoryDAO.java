@@ -5,83 +5,148 @@ import org.example.model.CategoryType;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CategoryDAO {
+    // Общий кеш справочника: по одному экземпляру Category на id для всех DAO.
+    // Категорий единицы, поэтому читаем таблицу целиком и держим неизменяемый снимок;
+    // addCategory/deleteCategory сбрасывают его, следующий запрос перечитывает таблицу.
+    // Экземпляры общие - изменять их через сеттеры нельзя.
+    private static volatile CategorySnapshot snapshot;
+    // Номер сброса кеша. Снимок помнит номер, с которым началось его чтение, и действителен,
+    // только пока номер не изменился: загрузка, начатая до фиксации addCategory/deleteCategory,
+    // не может оставить в кеше старый список
+    private static final AtomicLong generation = new AtomicLong();
+    // Неизвестный id перечитывает таблицу не чаще одного раза за интервал
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Метрики операций (QueryMetrics, JMX); чтения из кеша тоже замеряются,
+    // а обращение к таблице при промахе учитывается отдельно как loadCategories
+    private static final OperationMetrics ALL = QueryMetrics.operation(CategoryDAO.class, "getAllCategories");
+    private static final OperationMetrics BY_TYPE = QueryMetrics.operation(CategoryDAO.class, "getCategoriesByType");
+    private static final OperationMetrics BY_ID = QueryMetrics.operation(CategoryDAO.class, "getCategoryById");
+    private static final OperationMetrics LOAD = QueryMetrics.operation(CategoryDAO.class, "loadCategories");
+    private static final OperationMetrics ADD = QueryMetrics.operation(CategoryDAO.class, "addCategory");
+    private static final OperationMetrics DELETE = QueryMetrics.operation(CategoryDAO.class, "deleteCategory");
+
+    private final RollupDAO rollupDAO = new RollupDAO();
 
     public List<Category> getAllCategories() {
-        List<Category> categories = new ArrayList<>();
-        String sql = "SELECT * FROM categories ORDER BY type, name";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                Category category = new Category();
-                category.setId(rs.getLong("id"));
-                category.setName(rs.getString("name"));
-                category.setType(CategoryType.valueOf(rs.getString("type")));
-                category.setColor(rs.getString("color"));
-                categories.add(category);
-            }
-        } catch (SQLException e) {
-            System.err.println("Ошибка при получении категорий: " + e.getMessage());
+        try (QueryTimer timer = ALL.start()) {
+            List<Category> categories = new ArrayList<>(getSnapshot().all);
+            timer.success(categories.size());
+            return categories;
         }
-        return categories;
     }
 
     public List<Category> getCategoriesByType(CategoryType type) {
-        List<Category> categories = new ArrayList<>();
-        String sql = "SELECT * FROM categories WHERE type = ? ORDER BY name";
-
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, type.name());
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Category category = new Category();
-                    category.setId(rs.getLong("id"));
-                    category.setName(rs.getString("name"));
-                    category.setType(CategoryType.valueOf(rs.getString("type")));
-                    category.setColor(rs.getString("color"));
+        try (QueryTimer timer = BY_TYPE.start()) {
+            List<Category> categories = new ArrayList<>();
+            for (Category category : getSnapshot().all) {
+                if (category.getType() == type) {
                     categories.add(category);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Ошибка при получении категорий по типу: " + e.getMessage());
+            timer.success(categories.size());
+            return categories;
         }
-        return categories;
     }
 
     public Category getCategoryById(Long id) {
-        String sql = "SELECT * FROM categories WHERE id = ?";
+        try (QueryTimer timer = BY_ID.start()) {
+            Category category = id != null ? cached(id) : null;
+            timer.success(category != null ? 1 : 0);
+            return category;
+        }
+    }
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    // Каноническая категория по id для маппинга строк транзакций. Если id нет
+    // в снимке (категорию добавил другой процесс через AUTO_SERVER), кеш перечитывается,
+    // но не чаще MISS_RELOAD_INTERVAL: висячие id не вызывают загрузку таблицы на каждую строку.
+    static Category cached(long id) {
+        CategorySnapshot current = getSnapshot();
+        Category category = current.byId.get(id);
+        if (category == null && System.nanoTime() - current.loadedAt >= MISS_RELOAD_INTERVAL_NANOS) {
+            synchronized (CategoryDAO.class) {
+                // Другой поток мог уже перечитать таблицу по тому же промаху
+                if (snapshot == current) {
+                    invalidateCache();
+                }
+            }
+            category = getSnapshot().byId.get(id);
+        }
+        return category;
+    }
 
-            stmt.setLong(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
+    public static void invalidateCache() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private static CategorySnapshot getSnapshot() {
+        CategorySnapshot current = snapshot;
+        if (current != null && current.generation == generation.get()) {
+            return current;
+        }
+        synchronized (CategoryDAO.class) {
+            long loadingGeneration = generation.get();
+            current = snapshot;
+            if (current != null && current.generation == loadingGeneration) {
+                return current;
+            }
+            CategorySnapshot loaded = loadSnapshot(loadingGeneration);
+            if (loaded == null) {
+                // Ошибка чтения не кешируется: следующий запрос попробует снова
+                return new CategorySnapshot(new ArrayList<>(), -1);
+            }
+            // Если кеш сбросили во время чтения, снимок уже недействителен и будет перечитан
+            snapshot = loaded;
+            return loaded;
+        }
+    }
+
+    private static CategorySnapshot loadSnapshot(long loadingGeneration) {
+        List<Category> categories = new ArrayList<>();
+        String sql = "SELECT * FROM categories ORDER BY type, name";
+
+        try (QueryTimer timer = LOAD.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Снимок кешируется надолго, поэтому читается в обход повторного использования
+            // результатов H2 (в ленивом режиме оно отключено): коммит другой сессии
+            // отмечает таблицу измененной раньше, чем данные становятся видимыми, и
+            // прочитанный в этот момент результат сессия отдавала бы и после коммита
+            stmt.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
                     Category category = new Category();
                     category.setId(rs.getLong("id"));
                     category.setName(rs.getString("name"));
                     category.setType(CategoryType.valueOf(rs.getString("type")));
                     category.setColor(rs.getString("color"));
-                    return category;
+                    categories.add(category);
                 }
+            } finally {
+                stmt.execute("SET LAZY_QUERY_EXECUTION FALSE");
             }
+            timer.success(categories.size());
         } catch (SQLException e) {
-            System.err.println("Ошибка при получении категории по ID: " + e.getMessage());
+            System.err.println("Ошибка при получении категорий: " + e.getMessage());
+            return null;
         }
-        return null;
+        return new CategorySnapshot(categories, loadingGeneration);
     }
 
     public boolean addCategory(Category category) {
         String sql = "INSERT INTO categories (name, type, color) VALUES (?, ?, ?)";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = ADD.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, category.getName());
@@ -89,6 +154,7 @@ public class CategoryDAO {
             stmt.setString(3, category.getColor());
 
             int affectedRows = stmt.executeUpdate();
+            timer.success(affectedRows);
 
             if (affectedRows > 0) {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
@@ -96,6 +162,8 @@ public class CategoryDAO {
                         category.setId(generatedKeys.getLong(1));
                     }
                 }
+                invalidateCache();
+                TransactionDAO.fireCategoryAdded(category);
                 return true;
             }
         } catch (SQLException e) {
@@ -107,14 +175,47 @@ public class CategoryDAO {
     public boolean deleteCategory(Long id) {
         String sql = "DELETE FROM categories WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+        try (QueryTimer timer = DELETE.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                // Транзакции категории станут "без категории" (ON DELETE SET NULL)
+                rollupDAO.moveToNoCategory(conn, id);
+
+                stmt.setLong(1, id);
+                boolean deleted = stmt.executeUpdate() > 0;
+                if (deleted) {
+                    conn.commit();
+                    timer.success(1);
+                    invalidateCache();
+                    TransactionDAO.fireCategoryDeleted(id);
+                } else {
+                    conn.rollback();
+                    timer.success(0);
+                }
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             System.err.println("Ошибка при удалении категории: " + e.getMessage());
         }
         return false;
     }
-}
\ No newline at end of file
+
+    private static class CategorySnapshot {
+        private final List<Category> all;
+        private final Map<Long, Category> byId = new HashMap<>();
+        private final long generation;
+        private final long loadedAt = System.nanoTime();
+
+        CategorySnapshot(List<Category> all, long generation) {
+            this.generation = generation;
+            this.all = Collections.unmodifiableList(all);
+            for (Category category : all) {
+                byId.put(category.getId(), category);
+            }
+        }
+    }
+}
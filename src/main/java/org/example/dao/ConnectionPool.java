@@ -0,0 +1,344 @@
+package org.example.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ограниченный пул JDBC-соединений.
+// Выдает прокси-соединения, у которых close() возвращает физическое соединение в пул.
+// Если задан журнал медленных запросов, операторы этих соединений тоже оборачиваются в прокси.
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long maxWaitMillis;
+    private final int validationTimeoutSeconds;
+    private final SlowQueryLog slowQueryLog;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // Голова очереди - последнее возвращенное соединение (LIFO),
+    // хвост - дольше всех простаивающее
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int total;
+    private boolean closed;
+
+    // Статистика
+    private long borrowCount;
+    private long waitCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long timeoutCount;
+    private long createdCount;
+    private long destroyedCount;
+
+    public ConnectionPool(String url, String username, String password,
+                          int maxSize, long idleTimeoutMillis, long maxWaitMillis,
+                          int validationTimeoutSeconds) {
+        this(url, username, password, maxSize, idleTimeoutMillis, maxWaitMillis, validationTimeoutSeconds, null);
+    }
+
+    public ConnectionPool(String url, String username, String password,
+                          int maxSize, long idleTimeoutMillis, long maxWaitMillis,
+                          int validationTimeoutSeconds, SlowQueryLog slowQueryLog) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        boolean waited = false;
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                evictExpired();
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Пул соединений закрыт");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (total < maxSize) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLException("Превышено время ожидания свободного соединения (" +
+                                maxWaitMillis + " мс), размер пула: " + maxSize);
+                    }
+                    waited = true;
+                    try {
+                        released.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Ожидание соединения прервано", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    Connection physical = DriverManager.getConnection(url, username, password);
+                    try {
+                        candidate = new PooledConnection(physical);
+                    } catch (SQLException e) {
+                        physical.close();
+                        throw e;
+                    }
+                } catch (SQLException e) {
+                    lock.lock();
+                    try {
+                        total--;
+                        released.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+                lock.lock();
+                try {
+                    createdCount++;
+                } finally {
+                    lock.unlock();
+                }
+            } else if (!isValid(candidate)) {
+                destroy(candidate);
+                continue;
+            }
+
+            lock.lock();
+            try {
+                long waitNanos = System.nanoTime() - start;
+                borrowCount++;
+                if (waited) {
+                    waitCount++;
+                }
+                totalWaitNanos += waitNanos;
+                maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+            } finally {
+                lock.unlock();
+            }
+            return candidate.lease();
+        }
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(total - idle.size(), idle.size(), maxSize,
+                    borrowCount, waitCount, totalWaitNanos, maxWaitNanos,
+                    timeoutCount, createdCount, destroyedCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Закрывает простаивающие соединения; выданные закроются при возврате
+    public void close() {
+        Deque<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection connection : toClose) {
+            destroy(connection);
+        }
+    }
+
+    private boolean isValid(PooledConnection connection) {
+        try {
+            return connection.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Возвращаемое соединение приводится к исходному состоянию: незавершенная транзакция
+    // откатывается, режимы, измененные арендатором, сбрасываются. Иначе следующий
+    // арендатор получит сессию с чужой транзакцией и ее снимком данных
+    private void release(PooledConnection connection) {
+        boolean healthy = true;
+        try {
+            Connection physical = connection.physical;
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly() != connection.defaultReadOnly) {
+                physical.setReadOnly(connection.defaultReadOnly);
+            }
+            if (physical.getTransactionIsolation() != connection.defaultIsolation) {
+                physical.setTransactionIsolation(connection.defaultIsolation);
+            }
+            physical.clearWarnings();
+        } catch (SQLException e) {
+            System.err.println("Соединение не удалось вернуть в пул: " + e.getMessage());
+            healthy = false;
+        }
+
+        lock.lock();
+        try {
+            if (healthy && !closed) {
+                connection.lastReleased = System.nanoTime();
+                idle.addFirst(connection);
+                released.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(connection);
+    }
+
+    // Вызывается под блокировкой: закрывает соединения, простаивающие дольше idleTimeout
+    private void evictExpired() {
+        if (idleTimeoutMillis <= 0) {
+            return;
+        }
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        PooledConnection oldest;
+        while ((oldest = idle.peekLast()) != null && oldest.lastReleased - threshold < 0) {
+            idle.pollLast();
+            total--;
+            destroyedCount++;
+            try {
+                oldest.physical.close();
+            } catch (SQLException e) {
+                // соединение уже не используется
+            }
+        }
+    }
+
+    private void destroy(PooledConnection connection) {
+        try {
+            connection.physical.close();
+        } catch (SQLException e) {
+            // соединение уже не используется
+        }
+        lock.lock();
+        try {
+            total--;
+            destroyedCount++;
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Физическое соединение из пула
+    private class PooledConnection {
+        private final Connection physical;
+        private final boolean defaultReadOnly;
+        private final int defaultIsolation;
+        private long lastReleased;
+
+        PooledConnection(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultReadOnly = physical.isReadOnly();
+            this.defaultIsolation = physical.getTransactionIsolation();
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this));
+        }
+    }
+
+    // Логическое соединение: после close() физическое возвращается в пул,
+    // а сам прокси становится недействительным
+    private class LeaseHandler implements InvocationHandler {
+        private final PooledConnection owner;
+        private boolean returned;
+
+        LeaseHandler(PooledConnection owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(owner);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || owner.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + owner.physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("Соединение уже возвращено в пул");
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(owner.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    // createStatement, prepareStatement, prepareCall
+                    if (slowQueryLog != null && result instanceof Statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : null;
+                        return slowQueryLog.wrap((Statement) result, method.getReturnType(), sql, owner.physical);
+                    }
+                    return result;
+            }
+        }
+    }
+}
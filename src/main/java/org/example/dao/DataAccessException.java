@@ -0,0 +1,12 @@
+package org.example.dao;
+
+import java.sql.SQLException;
+
+// Непроверяемая ошибка доступа к данным: бросается там, где SQLException
+// нельзя пробросить через сигнатуру (например, при чтении потока строк)
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message, SQLException cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
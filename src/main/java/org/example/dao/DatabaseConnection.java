@@ -1,14 +1,17 @@
 package org.example.dao;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.Properties;
 
 public class DatabaseConnection {
     private static DatabaseConnection instance;
-    private Connection connection;
+    private ConnectionPool pool;
     private Properties properties;
+    // Открывается при создании первого пула и переживает его пересоздание
+    private SlowQueryLog slowQueryLog;
+    private boolean slowQueryLogOpened;
 
     private DatabaseConnection() {
         try {
@@ -23,12 +26,19 @@ public class DatabaseConnection {
                 properties.setProperty("db.username", "sa");
                 properties.setProperty("db.password", "");
             }
+            // Параметры JVM (-Ddb.url=...) перекрывают файл: так бенчмарки
+            // и нагрузочные прогоны работают с отдельной базой
+            for (String key : System.getProperties().stringPropertyNames()) {
+                if (properties.containsKey(key)) {
+                    properties.setProperty(key, System.getProperty(key));
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    public static DatabaseConnection getInstance() {
+    public static synchronized DatabaseConnection getInstance() {
         if (instance == null) {
             instance = new DatabaseConnection();
         }
@@ -36,55 +46,88 @@ public class DatabaseConnection {
     }
 
     public Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                String url = properties.getProperty("db.url");
-                String username = properties.getProperty("db.username");
-                String password = properties.getProperty("db.password");
-                connection = DriverManager.getConnection(url, username, password);
-            } catch (SQLException e) {
-                System.err.println("Ошибка подключения к базе данных: " + e.getMessage());
-                throw e;
-            }
+        try {
+            return getPool().getConnection();
+        } catch (SQLException e) {
+            System.err.println("Ошибка подключения к базе данных: " + e.getMessage());
+            throw e;
         }
-        return connection;
     }
 
-    public void initializeDatabase() {
-        try (Connection conn = getConnection()) {
-            // Читаем schema.sql из ресурсов
-            InputStream inputStream = getClass().getClassLoader()
-                    .getResourceAsStream("schema.sql");
+    public PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
 
-            if (inputStream != null) {
-                String schemaSql = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
 
-                // Разделяем SQL-запросы по точке с запятой
-                String[] queries = schemaSql.split(";");
+    public int getIntProperty(String key, int defaultValue) {
+        return (int) getLongProperty(key, defaultValue);
+    }
 
-                try (Statement stmt = conn.createStatement()) {
-                    for (String query : queries) {
-                        if (!query.trim().isEmpty()) {
-                            stmt.execute(query);
-                        }
-                    }
-                    System.out.println("База данных успешно инициализирована");
-                }
+    public long getLongProperty(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Некорректное значение параметра " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    private synchronized ConnectionPool getPool() {
+        if (pool == null || pool.isClosed()) {
+            if (!slowQueryLogOpened) {
+                slowQueryLogOpened = true;
+                slowQueryLog = SlowQueryLog.fromProperties(this);
             }
-        } catch (Exception e) {
+            pool = new ConnectionPool(
+                    properties.getProperty("db.url"),
+                    properties.getProperty("db.username"),
+                    properties.getProperty("db.password"),
+                    getIntProperty("db.pool.max.size", 10),
+                    getLongProperty("db.pool.idle.timeout.ms", 300_000),
+                    getLongProperty("db.pool.max.wait.ms", 5_000),
+                    getIntProperty("db.pool.validation.timeout.sec", 2),
+                    slowQueryLog);
+        }
+        return pool;
+    }
+
+    // Сбой миграции или измененный скрипт - фатальная ошибка: работать со схемой
+    // неизвестной версии нельзя, поэтому исключение пробрасывается вызывающему
+    public void initializeDatabase() {
+        try (Connection conn = getConnection()) {
+            // Применяем недостающие миграции из db/migration
+            int applied = new SchemaMigrator().migrate(conn);
+            System.out.println("База данных успешно инициализирована" +
+                    (applied > 0 ? " (применено миграций: " + applied + ")" : ""));
+        } catch (SQLException | IOException | RuntimeException e) {
             System.err.println("Ошибка инициализации базы данных: " + e.getMessage());
-            e.printStackTrace();
+            throw new IllegalStateException("Ошибка инициализации базы данных: " + e.getMessage(), e);
         }
     }
 
-    public void closeConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                connection = null;
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+    // Сбрасывает зафиксированные изменения на диск (CHECKPOINT SYNC в H2)
+    public boolean syncToDisk() {
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CHECKPOINT SYNC");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Ошибка при сбросе базы данных на диск: " + e.getMessage());
+        }
+        return false;
+    }
+
+    public synchronized void closeConnection() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
     }
 }
\ No newline at end of file
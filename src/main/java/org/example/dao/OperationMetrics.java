@@ -0,0 +1,171 @@
+package org.example.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Накопительные метрики одной операции DAO: вызовы, ошибки, строки и гистограмма задержек.
+// Запись без блокировок (LongAdder и атомарные счетчики), поэтому ее можно держать
+// включенной постоянно. Гистограмма логарифмическая: по 8 интервалов на каждую степень двойки
+// наносекунд, т.е. перцентиль завышается не более чем на 1/8.
+public class OperationMetrics implements OperationMetricsMXBean {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String dao;
+    private final String operation;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    OperationMetrics(String dao, String operation) {
+        this.dao = dao;
+        this.operation = operation;
+    }
+
+    public QueryTimer start() {
+        return new QueryTimer(this);
+    }
+
+    void record(long nanos, long rowCount, boolean failed) {
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        totalNanos.add(nanos);
+        histogram.incrementAndGet(bucket(nanos));
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    String getDao() {
+        return dao;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / calls;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(50);
+    }
+
+    @Override
+    public double getP90Millis() {
+        return percentileMillis(90);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(99);
+    }
+
+    @Override
+    public double getP999Millis() {
+        return percentileMillis(99.9);
+    }
+
+    // Верхняя граница интервала гистограммы, в который попадает перцентиль (не больше максимума)
+    public double percentileMillis(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos.get()) / 1_000_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        errors.reset();
+        rows.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    // Значения меньше 8 нс - по одному интервалу на наносекунду, дальше по 8 на степень двойки
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long width = 1L << (exponent - SUB_BITS);
+        long lower = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+        return lower + width - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s: вызовов %d, ошибок %d, строк %d, ср. %.3f мс, " +
+                        "p50 %.3f мс, p90 %.3f мс, p99 %.3f мс, p99.9 %.3f мс, макс. %.3f мс",
+                dao, operation, getCount(), getErrorCount(), getRowCount(), getMeanMillis(),
+                getP50Millis(), getP90Millis(), getP99Millis(), getP999Millis(), getMaxMillis());
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.dao;
+
+// Метрики одной операции DAO в JMX (org.example:type=QueryMetrics,dao=...,operation=...)
+public interface OperationMetricsMXBean {
+    String getOperation();
+
+    long getCount();
+
+    long getErrorCount();
+
+    long getRowCount();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    void reset();
+}
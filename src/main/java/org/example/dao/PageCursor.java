@@ -0,0 +1,41 @@
+package org.example.dao;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Позиция в списке транзакций, упорядоченном по (transaction_date DESC, id DESC)
+public class PageCursor {
+    private final LocalDateTime date;
+    private final long id;
+
+    public PageCursor(LocalDateTime date, long id) {
+        this.date = Objects.requireNonNull(date, "date");
+        this.id = id;
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageCursor)) return false;
+        PageCursor that = (PageCursor) o;
+        return id == that.id && date.equals(that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id);
+    }
+
+    @Override
+    public String toString() {
+        return date + "#" + id;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.dao;
+
+import java.util.concurrent.TimeUnit;
+
+// Снимок состояния пула соединений
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int maxSize;
+    private final long borrowCount;
+    private final long waitCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long destroyedCount;
+
+    public PoolStats(int active, int idle, int maxSize, long borrowCount, long waitCount,
+                     long totalWaitNanos, long maxWaitNanos, long timeoutCount,
+                     long createdCount, long destroyedCount) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.borrowCount = borrowCount;
+        this.waitCount = waitCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getWaitCount() {
+        return waitCount;
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Пул: активных %d, свободных %d (макс. %d), выдано %d, ожиданий %d, " +
+                        "ожидание ср. %.3f мс / макс. %d мс, таймаутов %d, создано %d, закрыто %d",
+                active, idle, maxSize, borrowCount, waitCount,
+                getAverageWaitMillis(), getMaxWaitMillis(), timeoutCount, createdCount, destroyedCount);
+    }
+}
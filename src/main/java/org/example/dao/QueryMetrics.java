@@ -0,0 +1,167 @@
+package org.example.dao;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Реестр метрик операций DAO. Каждая операция регистрируется один раз (в статическом поле DAO)
+// и публикуется в платформенном MBeanServer, так что метрики видны в JConsole/VisualVM
+// и снимаются jmxterm на месте. Таблицу можно выгрузить в файл через JMX (dumpToFile)
+// или автоматически при завершении JVM (metrics.dump.on.exit).
+public final class QueryMetrics {
+    private static final String DOMAIN = "org.example";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+    private static final boolean JMX_ENABLED;
+    private static final String DUMP_FILE;
+
+    static {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        JMX_ENABLED = Boolean.parseBoolean(db.getProperty("metrics.jmx.enabled", "true"));
+        DUMP_FILE = db.getProperty("metrics.dump.file", "query-metrics.txt");
+        if (JMX_ENABLED) {
+            register(new Registry(), DOMAIN + ":type=QueryMetrics");
+        }
+        if (Boolean.parseBoolean(db.getProperty("metrics.dump.on.exit", "false"))) {
+            Runtime.getRuntime().addShutdownHook(new Thread(QueryMetrics::dump, "query-metrics-dump"));
+        }
+    }
+
+    private QueryMetrics() {
+    }
+
+    public static OperationMetrics operation(Class<?> dao, String operation) {
+        String key = dao.getSimpleName() + "." + operation;
+        return OPERATIONS.computeIfAbsent(key, k -> {
+            OperationMetrics metrics = new OperationMetrics(dao.getSimpleName(), operation);
+            if (JMX_ENABLED) {
+                register(metrics, DOMAIN + ":type=QueryMetrics,dao=" + dao.getSimpleName()
+                        + ",operation=" + operation);
+            }
+            return metrics;
+        });
+    }
+
+    // Операции по имени (DAO.операция)
+    public static List<OperationMetrics> getOperations() {
+        List<OperationMetrics> operations = new ArrayList<>(OPERATIONS.values());
+        operations.sort(Comparator.comparing(OperationMetrics::getDao)
+                .thenComparing(OperationMetrics::getOperation));
+        return operations;
+    }
+
+    public static void reset() {
+        for (OperationMetrics metrics : OPERATIONS.values()) {
+            metrics.reset();
+        }
+    }
+
+    public static String dump() {
+        return dumpToFile(DUMP_FILE);
+    }
+
+    // Таблица метрик в текстовом файле (перезаписывается); null - если записать не удалось
+    public static String dumpToFile(String path) {
+        Path file = Paths.get(path).toAbsolutePath();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                writeTable(out);
+            }
+            return file.toString();
+        } catch (IOException e) {
+            System.err.println("Ошибка при записи метрик запросов: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static void writeTable(PrintWriter out) {
+        out.printf("Метрики запросов на %s%n", LocalDateTime.now().format(STAMP));
+        out.printf("%-48s %9s %7s %11s %9s %9s %9s %9s %9s %9s%n", "Операция", "Вызовов", "Ошибок",
+                "Строк", "ср. мс", "p50 мс", "p90 мс", "p99 мс", "p99.9 мс", "макс мс");
+        for (OperationMetrics metrics : getOperations()) {
+            if (metrics.getCount() == 0) {
+                continue;
+            }
+            out.printf("%-48s %9d %7d %11d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    metrics.getDao() + "." + metrics.getOperation(), metrics.getCount(),
+                    metrics.getErrorCount(), metrics.getRowCount(), metrics.getMeanMillis(),
+                    metrics.getP50Millis(), metrics.getP90Millis(), metrics.getP99Millis(),
+                    metrics.getP999Millis(), metrics.getMaxMillis());
+        }
+    }
+
+    // Повторная регистрация (второй загрузчик классов в той же JVM) не считается ошибкой
+    private static void register(Object mbean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException e) {
+            System.err.println("Ошибка регистрации MBean " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static class Registry implements QueryMetricsMXBean {
+        @Override
+        public String[] getOperations() {
+            List<String> names = new ArrayList<>();
+            for (OperationMetrics metrics : QueryMetrics.getOperations()) {
+                names.add(metrics.getDao() + "." + metrics.getOperation());
+            }
+            return names.toArray(new String[0]);
+        }
+
+        @Override
+        public long getTotalCount() {
+            long total = 0;
+            for (OperationMetrics metrics : OPERATIONS.values()) {
+                total += metrics.getCount();
+            }
+            return total;
+        }
+
+        @Override
+        public long getTotalErrorCount() {
+            long total = 0;
+            for (OperationMetrics metrics : OPERATIONS.values()) {
+                total += metrics.getErrorCount();
+            }
+            return total;
+        }
+
+        @Override
+        public String dumpToFile(String path) {
+            return QueryMetrics.dumpToFile(path);
+        }
+
+        @Override
+        public String dump() {
+            return QueryMetrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            QueryMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.dao;
+
+// Реестр метрик DAO в JMX (org.example:type=QueryMetrics)
+public interface QueryMetricsMXBean {
+    String[] getOperations();
+
+    long getTotalCount();
+
+    long getTotalErrorCount();
+
+    // Записывает таблицу метрик в файл и возвращает его полный путь
+    String dumpToFile(String path);
+
+    // То же в файл из metrics.dump.file
+    String dump();
+
+    void reset();
+}
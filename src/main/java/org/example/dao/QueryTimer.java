@@ -0,0 +1,41 @@
+package org.example.dao;
+
+// Замер одного вызова операции DAO. Открывается первым ресурсом try-with-resources:
+// вызов без success() к моменту закрытия (исключение, ранний выход по ошибке) считается ошибкой.
+public final class QueryTimer implements AutoCloseable {
+    private final OperationMetrics metrics;
+    private final long started = System.nanoTime();
+    private long rows;
+    private boolean succeeded;
+    private boolean closed;
+
+    QueryTimer(OperationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void success() {
+        succeeded = true;
+    }
+
+    public void success(long rowCount) {
+        rows = rowCount;
+        succeeded = true;
+    }
+
+    // Для потоковых выборок: строки считаются по мере чтения
+    public void addRow() {
+        rows++;
+    }
+
+    public void failure() {
+        succeeded = false;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            metrics.record(System.nanoTime() - started, rows, !succeeded);
+        }
+    }
+}
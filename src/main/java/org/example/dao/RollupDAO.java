@@ -0,0 +1,436 @@
+package org.example.dao;
+
+import org.example.model.AmountSummary;
+import org.example.model.Category;
+import org.example.model.CategorySummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Сводные таблицы rollup_daily / rollup_monthly: суммы и количество транзакций
+// по (период, категория, тип), и running_totals - итоги за все время по типу.
+// Изменяются в транзакции вызывающего DAO, поэтому всегда согласованы с таблицей transactions.
+public class RollupDAO {
+    // Транзакции без категории хранятся под category_id = 0 (NULL недопустим в первичном ключе)
+    private static final long NO_CATEGORY = 0L;
+
+    private enum Rollup {
+        DAILY("rollup_daily", PeriodUnit.DAY),
+        MONTHLY("rollup_monthly", PeriodUnit.MONTH);
+
+        private final String table;
+        private final PeriodUnit unit;
+
+        Rollup(String table, PeriodUnit unit) {
+            this.table = table;
+            this.unit = unit;
+        }
+    }
+
+    // Добавляет вставленные транзакции в сводные таблицы (remove = false)
+    // или вычитает удаленные (remove = true). Вызывается внутри транзакции conn.
+    public void apply(Connection conn, Collection<Transaction> transactions, boolean remove) throws SQLException {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        for (Rollup rollup : Rollup.values()) {
+            Map<Key, Delta> deltas = new HashMap<>();
+            for (Transaction transaction : transactions) {
+                Key key = new Key(rollup.unit.truncate(transaction.getDate().toLocalDate()),
+                        categoryIdOf(transaction), transaction.getType());
+                deltas.computeIfAbsent(key, k -> new Delta()).add(transaction.getAmount(), remove);
+            }
+            upsert(conn, rollup, deltas);
+            if (remove) {
+                deleteEmpty(conn, rollup, deltas.keySet());
+            }
+        }
+        applyRunningTotals(conn, transactions, remove);
+    }
+
+    // Строки running_totals для каждого типа созданы миграцией V5 и только обновляются,
+    // поэтому одновременные первые вставки типа не сталкиваются на создании строки.
+    // Строка типа - общая точка для всех пишущих транзакций: ее блокировка держится
+    // до коммита, и записи одного типа фиксируются по очереди. Так же устроены строки
+    // rollup_daily текущего дня, поэтому разбиение одного счетчика на полосы очередь
+    // не убрало бы; пропускную способность дают пакеты (addTransactions, групповая
+    // фиксация AsyncTransactionWriter), где блокировка берется один раз на пакет
+    private void applyRunningTotals(Connection conn, Collection<Transaction> transactions,
+                                    boolean remove) throws SQLException {
+        Map<TransactionType, Delta> deltas = new EnumMap<>(TransactionType.class);
+        for (Transaction transaction : transactions) {
+            deltas.computeIfAbsent(transaction.getType(), k -> new Delta()).add(transaction.getAmount(), remove);
+        }
+        String sql = "UPDATE running_totals SET total = total + ?, tx_count = tx_count + ? WHERE type = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<TransactionType, Delta> entry : deltas.entrySet()) {
+                stmt.setBigDecimal(1, Money.ofMinor(entry.getValue().total).toBigDecimal());
+                stmt.setLong(2, entry.getValue().count);
+                stmt.setString(3, entry.getKey().name());
+                if (stmt.executeUpdate() == 0) {
+                    throw new SQLException("Нет строки итогов для типа " + entry.getKey().name() +
+                            " (не применена миграция V5)");
+                }
+            }
+        }
+    }
+
+    // Переносит суммы удаляемой категории в "без категории" (ON DELETE SET NULL у транзакций)
+    public void moveToNoCategory(Connection conn, long categoryId) throws SQLException {
+        for (Rollup rollup : Rollup.values()) {
+            String merge = "MERGE INTO " + rollup.table + " r " +
+                    "USING (SELECT period_start, type, total, tx_count FROM " + rollup.table +
+                    " WHERE category_id = ?) d " +
+                    "ON r.period_start = d.period_start AND r.category_id = " + NO_CATEGORY + " AND r.type = d.type " +
+                    "WHEN MATCHED THEN UPDATE SET total = r.total + d.total, tx_count = r.tx_count + d.tx_count " +
+                    "WHEN NOT MATCHED THEN INSERT (period_start, category_id, type, total, tx_count) " +
+                    "VALUES (d.period_start, " + NO_CATEGORY + ", d.type, d.total, d.tx_count)";
+            try (PreparedStatement stmt = conn.prepareStatement(merge)) {
+                stmt.setLong(1, categoryId);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM " + rollup.table + " WHERE category_id = ?")) {
+                stmt.setLong(1, categoryId);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Полный пересчет сводных таблиц по таблице transactions
+    public boolean rebuild() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (Rollup rollup : Rollup.values()) {
+                    String period = "CAST(DATE_TRUNC('" + rollup.unit.getSqlUnit() + "', transaction_date) AS DATE)";
+                    stmt.executeUpdate("DELETE FROM " + rollup.table);
+                    stmt.executeUpdate("INSERT INTO " + rollup.table +
+                            " (period_start, category_id, type, total, tx_count) " +
+                            "SELECT " + period + ", COALESCE(category_id, " + NO_CATEGORY + "), type, " +
+                            "SUM(amount), COUNT(*) " +
+                            "FROM transactions " +
+                            "GROUP BY " + period + ", COALESCE(category_id, " + NO_CATEGORY + "), type");
+                }
+                // Строки типов сохраняются: apply их только обновляет
+                stmt.executeUpdate("UPDATE running_totals r SET " +
+                        "total = COALESCE((SELECT SUM(t.amount) FROM transactions t WHERE t.type = r.type), 0), " +
+                        "tx_count = (SELECT COUNT(*) FROM transactions t WHERE t.type = r.type)");
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при пересчете сводных таблиц: " + e.getMessage());
+        }
+        return false;
+    }
+
+    // Итоги за все время из running_totals (не больше строки на тип); null при ошибке чтения
+    public Map<TransactionType, AmountSummary> getRunningTotals() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            return readRunningTotals(conn);
+        } catch (SQLException e) {
+            System.err.println("Ошибка при чтении итогов: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Проверка согласованности: итоги пересчитываются по таблице transactions
+    // и сравниваются с running_totals в одном снимке данных. Расхождения выводятся в лог
+    public boolean verifyRunningTotals() {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            int isolation = conn.getTransactionIsolation();
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                Map<TransactionType, AmountSummary> stored = readRunningTotals(conn);
+                Map<TransactionType, AmountSummary> actual = new EnumMap<>(TransactionType.class);
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT type, SUM(amount) as total, COUNT(*) as cnt " +
+                             "FROM transactions GROUP BY type")) {
+                    while (rs.next()) {
+                        actual.put(TransactionType.valueOf(rs.getString("type")),
+                                new AmountSummary(rs.getLong("cnt"), Money.of(rs.getBigDecimal("total"))));
+                    }
+                }
+
+                boolean consistent = true;
+                for (TransactionType type : TransactionType.values()) {
+                    AmountSummary expected = actual.getOrDefault(type, AmountSummary.EMPTY);
+                    AmountSummary found = stored.getOrDefault(type, AmountSummary.EMPTY);
+                    if (expected.getCount() != found.getCount() || !expected.getTotal().equals(found.getTotal())) {
+                        System.err.println("Расхождение итогов (" + type + "): в running_totals " +
+                                found.getTotal() + " / " + found.getCount() + ", по транзакциям " +
+                                expected.getTotal() + " / " + expected.getCount());
+                        consistent = false;
+                    }
+                }
+                return consistent;
+            } finally {
+                conn.rollback();
+                conn.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при проверке итогов: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private Map<TransactionType, AmountSummary> readRunningTotals(Connection conn) throws SQLException {
+        Map<TransactionType, AmountSummary> result = new EnumMap<>(TransactionType.class);
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT type, total, tx_count FROM running_totals")) {
+            while (rs.next()) {
+                if (rs.getLong("tx_count") > 0) {
+                    result.put(TransactionType.valueOf(rs.getString("type")),
+                            new AmountSummary(rs.getLong("tx_count"), Money.of(rs.getBigDecimal("total"))));
+                }
+            }
+        }
+        return result;
+    }
+
+    // Суммы по типам за дни [from, to]; без границ - за все время по месячной таблице
+    public Map<TransactionType, AmountSummary> getTotalsByType(LocalDate from, LocalDate to) {
+        Map<TransactionType, AmountSummary> result = new EnumMap<>(TransactionType.class);
+        Rollup rollup = chooseRollup(from, to);
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT r.type, SUM(r.total) as total, SUM(r.tx_count) as cnt " +
+                "FROM " + rollup.table + " r " +
+                buildWhere(null, from, to, params) +
+                "GROUP BY r.type";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(TransactionType.valueOf(rs.getString("type")),
+                            new AmountSummary(rs.getLong("cnt"), Money.of(rs.getBigDecimal("total"))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при чтении сводных сумм по типам: " + e.getMessage());
+        }
+        return result;
+    }
+
+    public List<CategorySummary> getTotalsByCategory(TransactionType type, LocalDate from, LocalDate to) {
+        List<CategorySummary> result = new ArrayList<>();
+        Rollup rollup = chooseRollup(from, to);
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT r.type, r.category_id, SUM(r.total) as total, SUM(r.tx_count) as cnt " +
+                "FROM " + rollup.table + " r " +
+                buildWhere(type, from, to, params) +
+                "GROUP BY r.type, r.category_id " +
+                "ORDER BY total DESC";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long categoryId = rs.getLong("category_id");
+                    Category category = categoryId != NO_CATEGORY ? CategoryDAO.cached(categoryId) : null;
+                    result.add(new CategorySummary(category, TransactionType.valueOf(rs.getString("type")),
+                            new AmountSummary(rs.getLong("cnt"), Money.of(rs.getBigDecimal("total")))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при чтении сводных сумм по категориям: " + e.getMessage());
+        }
+        return result;
+    }
+
+    // Суммы по периодам: читается O(дней), а не O(транзакций). Недели собираются
+    // из дневной таблицы, месяцы и кварталы - из месячной (DATE_TRUNC по началу периода).
+    // Месячная таблица берется только для месяцев, целиком попавших в [from, to]:
+    // неполные крайние месяцы суммируются по дням, чтобы не выйти за границы периода.
+    public List<PeriodSummary> getTotalsByPeriod(PeriodUnit unit, LocalDate from, LocalDate to) {
+        List<PeriodSummary> result = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        List<String> parts = new ArrayList<>();
+        if (unit == PeriodUnit.MONTH || unit == PeriodUnit.QUARTER) {
+            // Целые месяцы - [wholeFrom, wholeTo), null - без ограничения
+            LocalDate wholeFrom = from == null || from.getDayOfMonth() == 1
+                    ? from : from.withDayOfMonth(1).plusMonths(1);
+            LocalDate wholeTo = to == null || to.getDayOfMonth() == to.lengthOfMonth()
+                    ? (to != null ? to.plusDays(1) : null) : to.withDayOfMonth(1);
+            if (wholeFrom != null && wholeTo != null && !wholeFrom.isBefore(wholeTo)) {
+                parts.add(periodPart(Rollup.DAILY, unit, from, to, params));
+            } else {
+                if (from != null && from.isBefore(wholeFrom)) {
+                    parts.add(periodPart(Rollup.DAILY, unit, from, wholeFrom.minusDays(1), params));
+                }
+                parts.add(periodPart(Rollup.MONTHLY, unit, wholeFrom,
+                        wholeTo != null ? wholeTo.minusDays(1) : null, params));
+                if (to != null && !to.isBefore(wholeTo)) {
+                    parts.add(periodPart(Rollup.DAILY, unit, wholeTo, to, params));
+                }
+            }
+        } else {
+            parts.add(periodPart(Rollup.DAILY, unit, from, to, params));
+        }
+        String sql = "SELECT p.period, p.type, SUM(p.total) as total, SUM(p.tx_count) as cnt " +
+                "FROM (" + String.join(" UNION ALL ", parts) + ") p " +
+                "GROUP BY p.period, p.type " +
+                "ORDER BY p.period";
+
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new PeriodSummary(rs.getDate("period").toLocalDate(), unit,
+                            TransactionType.valueOf(rs.getString("type")),
+                            new AmountSummary(rs.getLong("cnt"), Money.of(rs.getBigDecimal("total")))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при чтении сводных сумм по периодам: " + e.getMessage());
+        }
+        return result;
+    }
+
+    // Строки сводной таблицы за [from, to] с началом периода unit
+    private String periodPart(Rollup rollup, PeriodUnit unit, LocalDate from, LocalDate to, List<Object> params) {
+        // Единица берется из перечисления, а не от пользователя, поэтому подставляется в текст запроса
+        String period = unit == rollup.unit
+                ? "r.period_start"
+                : "CAST(DATE_TRUNC('" + unit.getSqlUnit() + "', r.period_start) AS DATE)";
+        return "SELECT " + period + " as period, r.type, r.total, r.tx_count " +
+                "FROM " + rollup.table + " r " +
+                buildWhere(null, from, to, params);
+    }
+
+    private Rollup chooseRollup(LocalDate from, LocalDate to) {
+        return from == null && to == null ? Rollup.MONTHLY : Rollup.DAILY;
+    }
+
+    private void upsert(Connection conn, Rollup rollup, Map<Key, Delta> deltas) throws SQLException {
+        String sql = "MERGE INTO " + rollup.table + " r " +
+                "USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS VARCHAR(20)), " +
+                "CAST(? AS DECIMAL(19, 2)), CAST(? AS BIGINT))) " +
+                "AS d(period_start, category_id, type, total, tx_count) " +
+                "ON r.period_start = d.period_start AND r.category_id = d.category_id AND r.type = d.type " +
+                "WHEN MATCHED THEN UPDATE SET total = r.total + d.total, tx_count = r.tx_count + d.tx_count " +
+                "WHEN NOT MATCHED THEN INSERT (period_start, category_id, type, total, tx_count) " +
+                "VALUES (d.period_start, d.category_id, d.type, d.total, d.tx_count)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+                bindKey(stmt, entry.getKey());
+                stmt.setBigDecimal(4, Money.ofMinor(entry.getValue().total).toBigDecimal());
+                stmt.setLong(5, entry.getValue().count);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void deleteEmpty(Connection conn, Rollup rollup, Collection<Key> keys) throws SQLException {
+        String sql = "DELETE FROM " + rollup.table +
+                " WHERE period_start = ? AND category_id = ? AND type = ? AND tx_count <= 0";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Key key : keys) {
+                bindKey(stmt, key);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private void bindKey(PreparedStatement stmt, Key key) throws SQLException {
+        stmt.setDate(1, Date.valueOf(key.period));
+        stmt.setLong(2, key.categoryId);
+        stmt.setString(3, key.type.name());
+    }
+
+    private String buildWhere(TransactionType type, LocalDate from, LocalDate to, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (type != null) {
+            conditions.add("r.type = ?");
+            params.add(type.name());
+        }
+        if (from != null) {
+            conditions.add("r.period_start >= ?");
+            params.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("r.period_start <= ?");
+            params.add(Date.valueOf(to));
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
+
+    private void bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private long categoryIdOf(Transaction transaction) {
+        Category category = transaction.getCategory();
+        return category != null && category.getId() != null ? category.getId() : NO_CATEGORY;
+    }
+
+    private static class Key {
+        private final LocalDate period;
+        private final long categoryId;
+        private final TransactionType type;
+
+        Key(LocalDate period, long categoryId, TransactionType type) {
+            this.period = period;
+            this.categoryId = categoryId;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return categoryId == key.categoryId && period.equals(key.period) && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(period, categoryId, type);
+        }
+    }
+
+    private static class Delta {
+        private long total;
+        private long count;
+
+        void add(Money amount, boolean remove) {
+            if (remove) {
+                total = Math.subtractExact(total, amount.getMinorUnits());
+                count--;
+            } else {
+                total = Math.addExact(total, amount.getMinorUnits());
+                count++;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+// Версионные миграции схемы. Скрипты из db/migration применяются по порядку,
+// каждая примененная версия записывается в schema_version вместе с контрольной суммой.
+// Уже примененные миграции пропускаются; изменение примененного скрипта - ошибка.
+// H2 фиксирует каждую DDL-команду сразу, поэтому миграция не атомарна: откат после сбоя
+// отменяет только DML после последней DDL и запись в schema_version. Скрипты пишутся
+// повторяемыми (CREATE ... IF NOT EXISTS, DML после DDL), чтобы после исправления
+// причины сбоя миграцию можно было просто применить заново.
+public class SchemaMigrator {
+    private static final String LOCATION = "db/migration/";
+
+    // Новые миграции добавляются в конец списка, имена: V<версия>__<описание>.sql
+    private static final String[] MIGRATIONS = {
+            "V1__initial_schema.sql",
+            "V2__transaction_indexes.sql",
+            "V3__rollup_tables.sql",
+            "V4__running_totals.sql",
+            "V5__seed_running_totals.sql"
+    };
+
+    public int migrate(Connection conn) throws SQLException, IOException {
+        createVersionTable(conn);
+        Map<Integer, String> applied = loadAppliedChecksums(conn);
+
+        int appliedNow = 0;
+        for (String script : MIGRATIONS) {
+            int version = parseVersion(script);
+            String sql = readScript(script);
+            String checksum = checksum(sql);
+
+            String appliedChecksum = applied.get(version);
+            if (appliedChecksum != null) {
+                if (!appliedChecksum.equals(checksum)) {
+                    throw new IllegalStateException("Миграция " + script +
+                            " изменена после применения (контрольная сумма не совпадает)");
+                }
+                continue;
+            }
+
+            applyMigration(conn, version, script, sql, checksum);
+            appliedNow++;
+        }
+        return appliedNow;
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT PRIMARY KEY, " +
+                    "script VARCHAR(200) NOT NULL, " +
+                    "checksum VARCHAR(64) NOT NULL, " +
+                    "execution_ms BIGINT NOT NULL, " +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+    }
+
+    private Map<Integer, String> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void applyMigration(Connection conn, int version, String script,
+                                String sql, String checksum) throws SQLException {
+        long start = System.currentTimeMillis();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            // Разделяем SQL-запросы по точке с запятой
+            for (String query : sql.split(";")) {
+                if (!query.trim().isEmpty()) {
+                    stmt.execute(query);
+                }
+            }
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, script, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, version);
+                insert.setString(2, script);
+                insert.setString(3, checksum);
+                insert.setLong(4, System.currentTimeMillis() - start);
+                insert.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Применена миграция " + script);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Ошибка миграции " + script + ": " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int parseVersion(String script) {
+        int end = script.indexOf("__");
+        if (!script.startsWith("V") || end < 2) {
+            throw new IllegalArgumentException("Некорректное имя миграции: " + script);
+        }
+        return Integer.parseInt(script.substring(1, end));
+    }
+
+    private String readScript(String script) throws IOException {
+        try (InputStream input = getClass().getClassLoader().getResourceAsStream(LOCATION + script)) {
+            if (input == null) {
+                throw new IOException("Не найден скрипт миграции: " + LOCATION + script);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // SHA-256 текста скрипта; переводы строк нормализуются, чтобы checkout
+    // в Windows не менял контрольную сумму
+    private String checksum(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+}
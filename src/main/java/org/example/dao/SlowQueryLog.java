@@ -0,0 +1,396 @@
+package org.example.dao;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Журнал медленных запросов. Пул оборачивает выданные операторы в прокси, которые
+// запоминают привязанные параметры и замеряют выполнение вместе с чтением строк
+// (время обработки строк вызывающим кодом не учитывается). Запрос дольше порога пишется
+// в файл с ротацией: SQL, параметры, число строк и длительность. При первой записи
+// каждого текста SQL к нему добавляется план H2 - EXPLAIN ANALYZE для выборок
+// (запрос выполняется повторно на том же соединении) и EXPLAIN для изменений данных.
+// План с tableScan по таблице означает, что запрос не попал в индекс.
+public class SlowQueryLog {
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final String SEPARATOR = System.lineSeparator();
+    // Ограничение на число различных запросов с сохраненным планом
+    private static final int MAX_PLANS = 1000;
+    private static final int MAX_PARAM_LENGTH = 100;
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final Logger logger;
+    private final Set<String> explained = ConcurrentHashMap.newKeySet();
+
+    SlowQueryLog(long thresholdMillis, boolean explain, String file, int maxBytes, int files) throws IOException {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+
+        Path path = Paths.get(file).toAbsolutePath();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        // При files > 1 FileHandler добавляет к имени номер поколения: slow-queries.log.0, .1, ...
+        FileHandler handler = new FileHandler(path.toString(), maxBytes, Math.max(1, files), true);
+        handler.setEncoding("UTF-8");
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + SEPARATOR;
+            }
+        });
+        logger = Logger.getLogger(SlowQueryLog.class.getName());
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.ALL);
+        logger.addHandler(handler);
+    }
+
+    // Журнал по параметрам db.slow.query.*; null - если он выключен или файл не открылся
+    static SlowQueryLog fromProperties(DatabaseConnection db) {
+        long threshold = db.getLongProperty("db.slow.query.threshold.ms", 200);
+        if (threshold < 0) {
+            return null;
+        }
+        try {
+            return new SlowQueryLog(threshold,
+                    Boolean.parseBoolean(db.getProperty("db.slow.query.explain", "true")),
+                    db.getProperty("db.slow.query.log.file", "logs/slow-queries.log"),
+                    db.getIntProperty("db.slow.query.log.max.bytes", 10 * 1024 * 1024),
+                    db.getIntProperty("db.slow.query.log.files", 5));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка при открытии журнала медленных запросов: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Прокси оператора, созданного методом соединения (createStatement, prepareStatement, prepareCall).
+    // sql - текст подготовленного запроса, для Statement - null (берется из execute*)
+    Statement wrap(Statement statement, Class<?> type, String sql, Connection physical) {
+        Class<?> iface = CallableStatement.class.isAssignableFrom(type) ? CallableStatement.class
+                : PreparedStatement.class.isAssignableFrom(type) ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{iface},
+                new StatementHandler(statement, sql, physical));
+    }
+
+    private void record(Execution execution, long rows, long nanos, SQLException error) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        StringBuilder entry = new StringBuilder();
+        entry.append(LocalDateTime.now().format(STAMP))
+                .append(" [").append(Thread.currentThread().getName()).append("] ")
+                .append(String.format(Locale.ROOT, "%.3f мс", nanos / 1_000_000.0));
+        if (rows >= 0) {
+            entry.append(", строк: ").append(rows);
+        }
+        if (execution.batchSize > 0) {
+            entry.append(", пакет: ").append(execution.batchSize);
+        }
+        if (error != null) {
+            entry.append(", ошибка: ").append(error.getMessage());
+        }
+        entry.append(SEPARATOR).append("SQL: ").append(execution.sql).append(SEPARATOR);
+        if (!execution.params.isEmpty()) {
+            entry.append(execution.batchSize > 0 ? "Параметры последней строки: " : "Параметры: ")
+                    .append(formatParams(execution.params)).append(SEPARATOR);
+        }
+        if (explain && error == null) {
+            String mode = explainMode(execution.sql);
+            if (mode != null) {
+                if (explained.size() < MAX_PLANS && explained.add(execution.sql)) {
+                    appendPlan(entry, execution, mode);
+                } else if (explained.contains(execution.sql)) {
+                    entry.append("План: записан ранее").append(SEPARATOR);
+                }
+            }
+        }
+        logger.info(entry.toString());
+    }
+
+    private void appendPlan(StringBuilder entry, Execution execution, String mode) {
+        try (PreparedStatement stmt = execution.physical.prepareStatement(mode + " " + execution.sql)) {
+            for (Map.Entry<Integer, Object> param : execution.params.entrySet()) {
+                stmt.setObject(param.getKey(), param.getValue());
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append(SEPARATOR);
+                }
+            }
+            entry.append("План (").append(mode).append("):").append(SEPARATOR).append(plan);
+            if (plan.indexOf("tableScan") >= 0) {
+                entry.append("Внимание: полный просмотр таблицы (tableScan)").append(SEPARATOR);
+            }
+        } catch (SQLException e) {
+            entry.append("План не получен: ").append(e.getMessage()).append(SEPARATOR);
+        }
+    }
+
+    // ANALYZE выполняет запрос, поэтому применяется только к выборкам
+    private static String explainMode(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String head = sql.trim().toUpperCase(Locale.ROOT);
+        if (head.startsWith("SELECT") || head.startsWith("WITH")) {
+            return "EXPLAIN ANALYZE";
+        }
+        if (head.startsWith("INSERT") || head.startsWith("UPDATE")
+                || head.startsWith("DELETE") || head.startsWith("MERGE")) {
+            return "EXPLAIN";
+        }
+        return null;
+    }
+
+    private static String formatParams(Map<Integer, Object> params) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<Integer, Object> param : params.entrySet()) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append('[').append(param.getKey()).append("] ");
+            Object value = param.getValue();
+            if (value == null) {
+                result.append("NULL");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                result.append(value);
+            } else {
+                String text = String.valueOf(value);
+                if (text.length() > MAX_PARAM_LENGTH) {
+                    text = text.substring(0, MAX_PARAM_LENGTH) + "...";
+                }
+                result.append('\'').append(text).append('\'');
+            }
+        }
+        return result.toString();
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Одно выполнение оператора: для выборки завершается закрытием ResultSet
+    // (или оператора), время складывается из executeQuery и вызовов next()
+    private class Execution {
+        private final String sql;
+        private final Map<Integer, Object> params;
+        private final int batchSize;
+        private final Connection physical;
+        private long nanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(String sql, Map<Integer, Object> params, int batchSize, Connection physical) {
+            this.sql = sql;
+            this.params = new TreeMap<>(params);
+            this.batchSize = batchSize;
+            this.physical = physical;
+        }
+
+        void finish(SQLException error) {
+            if (!finished) {
+                finished = true;
+                record(this, rows, nanos, error);
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String sql;
+        private final Connection physical;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private int batchSize;
+        private Execution open;
+
+        StatementHandler(Statement target, String sql, Connection physical) {
+            this.target = target;
+            this.sql = sql;
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "executeQuery":
+                    return executeQuery(method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    return execute(method, args);
+                case "addBatch":
+                    batchSize++;
+                    return call(target, method, args);
+                case "clearBatch":
+                    batchSize = 0;
+                    return call(target, method, args);
+                case "clearParameters":
+                    params.clear();
+                    return call(target, method, args);
+                case "close":
+                    finishOpen();
+                    return call(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    // setXxx(индекс, значение, ...) подготовленного оператора
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        params.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                    }
+                    return call(target, method, args);
+            }
+        }
+
+        private Object executeQuery(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            Execution execution = begin(args, 0);
+            long start = System.nanoTime();
+            ResultSet rs;
+            try {
+                rs = (ResultSet) call(target, method, args);
+            } catch (SQLException e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.finish(e);
+                throw e;
+            }
+            execution.nanos = System.nanoTime() - start;
+            open = execution;
+            return Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(rs, execution));
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishOpen();
+            boolean batch = method.getName().endsWith("Batch");
+            Execution execution = begin(args, batch ? batchSize : 0);
+            if (batch) {
+                batchSize = 0;
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(target, method, args);
+            } catch (SQLException e) {
+                execution.nanos = System.nanoTime() - start;
+                execution.finish(e);
+                throw e;
+            }
+            execution.nanos = System.nanoTime() - start;
+            execution.rows = affectedRows(result);
+            execution.finish(null);
+            return result;
+        }
+
+        // Текст запроса - из аргумента execute*(sql, ...) либо из prepareStatement
+        private Execution begin(Object[] args, int batch) {
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            return new Execution(text, params, batch, physical);
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish(null);
+                open = null;
+            }
+        }
+    }
+
+    // Для execute() число строк неизвестно (-1)
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total += Math.max(0, count);
+            }
+            return total;
+        }
+        if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(0, count);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    long start = System.nanoTime();
+                    try {
+                        boolean hasRow = target.next();
+                        if (hasRow) {
+                            execution.rows++;
+                        }
+                        return hasRow;
+                    } finally {
+                        execution.nanos += System.nanoTime() - start;
+                    }
+                case "close":
+                    try {
+                        return call(target, method, args);
+                    } finally {
+                        execution.finish(null);
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return call(target, method, args);
+            }
+        }
+    }
+}
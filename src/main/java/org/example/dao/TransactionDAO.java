@@ -1,67 +1,276 @@
 package org.example.dao;
 
+import org.example.model.AmountSummary;
+import org.example.model.Category;
+import org.example.model.CategorySummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
 import org.example.model.Transaction;
 import org.example.model.TransactionType;
-import org.example.model.Category;
-import org.example.model.CategoryType;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TransactionDAO {
-
+    // Категория берется из общего кеша CategoryDAO, поэтому JOIN с categories не нужен
+    private static final String SELECT_TRANSACTIONS =
+            "SELECT t.* FROM transactions t ";
+
+    private static final String SUMMARY_COLUMNS =
+            "COUNT(*) as cnt, SUM(t.amount) as total, MIN(t.amount) as min_amount, MAX(t.amount) as max_amount ";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (type, amount, category_id, transaction_date, description) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+    // Подписчики на зафиксированные изменения (общие для всех экземпляров DAO)
+    private static final List<TransactionWriteListener> WRITE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    // Метрики операций (QueryMetrics, JMX)
+    private static final OperationMetrics ADD = QueryMetrics.operation(TransactionDAO.class, "addTransaction");
+    private static final OperationMetrics ADD_BATCH = QueryMetrics.operation(TransactionDAO.class, "addTransactions");
+    private static final OperationMetrics DELETE = QueryMetrics.operation(TransactionDAO.class, "deleteTransaction");
+    private static final OperationMetrics ALL = QueryMetrics.operation(TransactionDAO.class, "getAllTransactions");
+    private static final OperationMetrics BY_DATE_RANGE =
+            QueryMetrics.operation(TransactionDAO.class, "getTransactionsByDateRange");
+    private static final OperationMetrics BY_CATEGORY =
+            QueryMetrics.operation(TransactionDAO.class, "getTransactionsByCategory");
+    private static final OperationMetrics FIRST_PAGE = QueryMetrics.operation(TransactionDAO.class, "getFirstPage");
+    private static final OperationMetrics NEXT_PAGE = QueryMetrics.operation(TransactionDAO.class, "nextPage");
+    private static final OperationMetrics PREVIOUS_PAGE =
+            QueryMetrics.operation(TransactionDAO.class, "previousPage");
+    private static final OperationMetrics PERIOD_PAGE =
+            QueryMetrics.operation(TransactionDAO.class, "nextPageInPeriod");
+    private static final OperationMetrics PAGE_AT = QueryMetrics.operation(TransactionDAO.class, "getPageAt");
+    private static final OperationMetrics COUNT = QueryMetrics.operation(TransactionDAO.class, "countTransactions");
+    private static final OperationMetrics COUNT_IN_PERIOD =
+            QueryMetrics.operation(TransactionDAO.class, "countTransactionsInPeriod");
+    private static final OperationMetrics STREAM_ALL =
+            QueryMetrics.operation(TransactionDAO.class, "streamAllTransactions");
+    private static final OperationMetrics STREAM_BY_DATE_RANGE =
+            QueryMetrics.operation(TransactionDAO.class, "streamTransactionsByDateRange");
+    private static final OperationMetrics STREAM_BY_CATEGORY =
+            QueryMetrics.operation(TransactionDAO.class, "streamTransactionsByCategory");
+    private static final OperationMetrics SCAN = QueryMetrics.operation(TransactionDAO.class, "scanRows");
+    private static final OperationMetrics TOTAL_BY_TYPE =
+            QueryMetrics.operation(TransactionDAO.class, "getTotalByType");
+    private static final OperationMetrics SUMMARY_BY_TYPE =
+            QueryMetrics.operation(TransactionDAO.class, "getSummaryByType");
+    private static final OperationMetrics SUMMARY_BY_CATEGORY =
+            QueryMetrics.operation(TransactionDAO.class, "getSummaryByCategory");
+    private static final OperationMetrics SUMMARY_BY_PERIOD =
+            QueryMetrics.operation(TransactionDAO.class, "getSummaryByPeriod");
+
+    private final RollupDAO rollupDAO = new RollupDAO();
+    private int fetchSize = DatabaseConnection.getInstance().getIntProperty("db.fetch.size", 1000);
+
+    // Вставка и обновление сводных таблиц выполняются в одной транзакции.
+    // Строка проверяется так же, как в пакетной вставке
     public boolean addTransaction(Transaction transaction) {
-        String sql = "INSERT INTO transactions (type, amount, category_id, transaction_date, description) " +
-                "VALUES (?, ?, ?, ?, ?)";
+        String problem = validateForInsert(transaction);
+        if (problem != null) {
+            System.err.println("Ошибка при добавлении транзакции: " + problem);
+            return false;
+        }
+        try (QueryTimer timer = ADD.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, transaction);
 
-            stmt.setString(1, transaction.getType().name());
-            stmt.setBigDecimal(2, transaction.getAmount());
+                int affectedRows = stmt.executeUpdate();
 
-            if (transaction.getCategory() != null && transaction.getCategory().getId() != null) {
-                stmt.setLong(3, transaction.getCategory().getId());
-            } else {
-                stmt.setNull(3, Types.BIGINT);
+                if (affectedRows > 0) {
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            transaction.setId(generatedKeys.getLong(1));
+                        }
+                    }
+                    rollupDAO.apply(conn, Collections.singletonList(transaction), false);
+                }
+                conn.commit();
+                timer.success(affectedRows);
+                if (affectedRows > 0) {
+                    fireTransactionsAdded(Collections.singletonList(transaction));
+                }
+                return affectedRows > 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                transaction.setId(null);
+                throw e;
             }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при добавлении транзакции: " + e.getMessage());
+        }
+        return false;
+    }
 
-            stmt.setTimestamp(4, Timestamp.valueOf(transaction.getDate()));
-            stmt.setString(5, transaction.getDescription());
+    public BatchInsertResult addTransactions(Collection<Transaction> transactions) {
+        return addTransactions(transactions,
+                DatabaseConnection.getInstance().getIntProperty("db.batch.size", 500));
+    }
 
-            int affectedRows = stmt.executeUpdate();
+    // Пакетная вставка в одной транзакции. Ошибочные строки не прерывают пакет:
+    // они попадают в BatchInsertResult.getFailures(), остальные фиксируются
+    public BatchInsertResult addTransactions(Collection<Transaction> transactions, int batchSize) {
+        List<Transaction> items = new ArrayList<>(transactions);
+        List<Long> ids = new ArrayList<>(Collections.nCopies(items.size(), (Long) null));
+        Map<Integer, String> failures = new TreeMap<>();
+        if (items.isEmpty()) {
+            return new BatchInsertResult(ids, failures);
+        }
+        int chunkSize = Math.max(1, batchSize);
+
+        try (QueryTimer timer = ADD_BATCH.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                List<Integer> pending = new ArrayList<>(Math.min(chunkSize, items.size()));
+
+                for (int i = 0; i < items.size(); i++) {
+                    String problem = validateForInsert(items.get(i));
+                    if (problem != null) {
+                        failures.put(i, problem);
+                        continue;
+                    }
+                    bindInsert(stmt, items.get(i));
+                    stmt.addBatch();
+                    pending.add(i);
 
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        transaction.setId(generatedKeys.getLong(1));
+                    if (pending.size() >= chunkSize) {
+                        executeInsertBatch(stmt, pending, items, ids, failures);
+                        pending.clear();
                     }
                 }
-                return true;
+                if (!pending.isEmpty()) {
+                    executeInsertBatch(stmt, pending, items, ids, failures);
+                }
+
+                List<Transaction> inserted = new ArrayList<>(items.size() - failures.size());
+                for (int i = 0; i < items.size(); i++) {
+                    if (ids.get(i) != null) {
+                        inserted.add(items.get(i));
+                    }
+                }
+                rollupDAO.apply(conn, inserted, false);
+                conn.commit();
+                timer.success(inserted.size());
+                if (!inserted.isEmpty()) {
+                    fireTransactionsAdded(inserted);
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
-            System.err.println("Ошибка при добавлении транзакции: " + e.getMessage());
+            System.err.println("Ошибка при пакетном добавлении транзакций: " + e.getMessage());
+            for (int i = 0; i < items.size(); i++) {
+                if (ids.get(i) != null) {
+                    items.get(i).setId(null);
+                    ids.set(i, null);
+                }
+                failures.putIfAbsent(i, e.getMessage());
+            }
         }
-        return false;
+        return new BatchInsertResult(ids, failures);
+    }
+
+    private void executeInsertBatch(PreparedStatement stmt, List<Integer> pending, List<Transaction> items,
+                                    List<Long> ids, Map<Integer, String> failures) throws SQLException {
+        int[] counts;
+        List<String> errors = new ArrayList<>();
+        try {
+            counts = stmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts();
+            for (SQLException next = e.getNextException(); next != null; next = next.getNextException()) {
+                errors.add(next.getMessage());
+            }
+            if (errors.isEmpty()) {
+                errors.add(e.getMessage());
+            }
+        }
+
+        // Ключи возвращаются только для успешно вставленных строк, в порядке пакета
+        int errorIndex = 0;
+        try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+            for (int i = 0; i < pending.size(); i++) {
+                int row = pending.get(i);
+                boolean inserted = counts != null && i < counts.length && counts[i] != Statement.EXECUTE_FAILED;
+                if (inserted && generatedKeys.next()) {
+                    long id = generatedKeys.getLong(1);
+                    ids.set(row, id);
+                    items.get(row).setId(id);
+                } else {
+                    String error = errors.isEmpty() ? "Строка не была вставлена"
+                            : errors.get(Math.min(errorIndex++, errors.size() - 1));
+                    failures.put(row, error);
+                }
+            }
+        }
+    }
+
+    private String validateForInsert(Transaction transaction) {
+        if (transaction == null) {
+            return "Пустая транзакция";
+        }
+        if (transaction.getType() == null) {
+            return "Не указан тип транзакции";
+        }
+        if (transaction.getAmount() == null) {
+            return "Не указана сумма";
+        }
+        if (transaction.getDate() == null) {
+            return "Не указана дата";
+        }
+        return null;
+    }
+
+    private void bindInsert(PreparedStatement stmt, Transaction transaction) throws SQLException {
+        stmt.setString(1, transaction.getType().name());
+        stmt.setBigDecimal(2, transaction.getAmount().toBigDecimal());
+
+        if (transaction.getCategory() != null && transaction.getCategory().getId() != null) {
+            stmt.setLong(3, transaction.getCategory().getId());
+        } else {
+            stmt.setNull(3, Types.BIGINT);
+        }
+
+        stmt.setTimestamp(4, Timestamp.valueOf(transaction.getDate()));
+        stmt.setString(5, transaction.getDescription());
     }
 
     public List<Transaction> getAllTransactions() {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.*, c.id as cat_id, c.name as cat_name, c.type as cat_type, c.color as cat_color " +
-                "FROM transactions t " +
-                "LEFT JOIN categories c ON t.category_id = c.id " +
+        String sql = SELECT_TRANSACTIONS +
                 "ORDER BY t.transaction_date DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = ALL.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
                 transactions.add(mapResultSetToTransaction(rs));
             }
+            timer.success(transactions.size());
         } catch (SQLException e) {
             System.err.println("Ошибка при получении всех транзакций: " + e.getMessage());
         }
@@ -70,13 +279,12 @@ public class TransactionDAO {
 
     public List<Transaction> getTransactionsByDateRange(LocalDateTime start, LocalDateTime end) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.*, c.id as cat_id, c.name as cat_name, c.type as cat_type, c.color as cat_color " +
-                "FROM transactions t " +
-                "LEFT JOIN categories c ON t.category_id = c.id " +
+        String sql = SELECT_TRANSACTIONS +
                 "WHERE t.transaction_date BETWEEN ? AND ? " +
                 "ORDER BY t.transaction_date DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = BY_DATE_RANGE.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setTimestamp(1, Timestamp.valueOf(start));
@@ -87,6 +295,7 @@ public class TransactionDAO {
                     transactions.add(mapResultSetToTransaction(rs));
                 }
             }
+            timer.success(transactions.size());
         } catch (SQLException e) {
             System.err.println("Ошибка при получении транзакций по диапазону дат: " + e.getMessage());
         }
@@ -95,13 +304,12 @@ public class TransactionDAO {
 
     public List<Transaction> getTransactionsByCategory(Long categoryId) {
         List<Transaction> transactions = new ArrayList<>();
-        String sql = "SELECT t.*, c.id as cat_id, c.name as cat_name, c.type as cat_type, c.color as cat_color " +
-                "FROM transactions t " +
-                "LEFT JOIN categories c ON t.category_id = c.id " +
+        String sql = SELECT_TRANSACTIONS +
                 "WHERE t.category_id = ? " +
                 "ORDER BY t.transaction_date DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = BY_CATEGORY.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, categoryId);
@@ -111,58 +319,621 @@ public class TransactionDAO {
                     transactions.add(mapResultSetToTransaction(rs));
                 }
             }
+            timer.success(transactions.size());
         } catch (SQLException e) {
             System.err.println("Ошибка при получении транзакций по категории: " + e.getMessage());
         }
         return transactions;
     }
 
-    public BigDecimal getTotalIncome() {
+    // Постраничный просмотр по ключу (transaction_date DESC, id DESC): страница ищется
+    // по индексу от курсора, поэтому время не зависит от глубины прокрутки, в отличие от OFFSET.
+    // Избыточное условие transaction_date <= ? позволяет H2 использовать диапазон индекса.
+    public TransactionPage getFirstPage(int pageSize) {
+        String sql = SELECT_TRANSACTIONS +
+                "ORDER BY t.transaction_date DESC, t.id DESC " +
+                "LIMIT ?";
+        List<Transaction> rows = queryPage(FIRST_PAGE, sql, stmt -> stmt.setInt(1, pageSize + 1),
+                "Ошибка при получении первой страницы транзакций");
+        boolean hasNext = trimToPageSize(rows, pageSize);
+        return new TransactionPage(rows, hasNext, false);
+    }
+
+    public TransactionPage nextPage(PageCursor after, int pageSize) {
+        if (after == null) {
+            return getFirstPage(pageSize);
+        }
+        String sql = SELECT_TRANSACTIONS +
+                "WHERE t.transaction_date <= ? " +
+                "AND (t.transaction_date < ? OR (t.transaction_date = ? AND t.id < ?)) " +
+                "ORDER BY t.transaction_date DESC, t.id DESC " +
+                "LIMIT ?";
+        List<Transaction> rows = queryPage(NEXT_PAGE, sql, stmt -> {
+            bindCursor(stmt, after);
+            stmt.setInt(5, pageSize + 1);
+        }, "Ошибка при получении следующей страницы транзакций");
+        boolean hasNext = trimToPageSize(rows, pageSize);
+        return new TransactionPage(rows, hasNext, true);
+    }
+
+    public TransactionPage previousPage(PageCursor before, int pageSize) {
+        if (before == null) {
+            return getFirstPage(pageSize);
+        }
+        String sql = SELECT_TRANSACTIONS +
+                "WHERE t.transaction_date >= ? " +
+                "AND (t.transaction_date > ? OR (t.transaction_date = ? AND t.id > ?)) " +
+                "ORDER BY t.transaction_date ASC, t.id ASC " +
+                "LIMIT ?";
+        List<Transaction> rows = queryPage(PREVIOUS_PAGE, sql, stmt -> {
+            bindCursor(stmt, before);
+            stmt.setInt(5, pageSize + 1);
+        }, "Ошибка при получении предыдущей страницы транзакций");
+        boolean hasPrevious = trimToPageSize(rows, pageSize);
+        if (!hasPrevious) {
+            // Дошли до начала списка: отдаем полную первую страницу
+            return getFirstPage(pageSize);
+        }
+        Collections.reverse(rows);
+        return new TransactionPage(rows, true, true);
+    }
+
+    // Страница внутри периода [start, end) (конец не входит, null - без ограничения) по ключу
+    // от курсора; after == null - первая страница периода
+    public TransactionPage nextPage(LocalDateTime start, LocalDateTime end, PageCursor after, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        String where = buildPeriodWhere(start, end, params);
+        if (after != null) {
+            where += (where.isEmpty() ? "WHERE " : "AND ") +
+                    "t.transaction_date <= ? " +
+                    "AND (t.transaction_date < ? OR (t.transaction_date = ? AND t.id < ?)) ";
+            Timestamp date = Timestamp.valueOf(after.getDate());
+            params.add(date);
+            params.add(date);
+            params.add(date);
+            params.add(after.getId());
+        }
+        params.add(pageSize + 1);
+        String sql = SELECT_TRANSACTIONS + where +
+                "ORDER BY t.transaction_date DESC, t.id DESC " +
+                "LIMIT ?";
+        List<Transaction> rows = queryPage(PERIOD_PAGE, sql, stmt -> bindParams(stmt, params),
+                "Ошибка при получении страницы транзакций за период");
+        boolean hasNext = trimToPageSize(rows, pageSize);
+        return new TransactionPage(rows, hasNext, after != null);
+    }
+
+    // Страница по номеру строки. OFFSET пропускает строки по индексу, поэтому
+    // используется только для переходов вглубь списка, когда курсора соседней страницы нет.
+    // Период [start, end), как у nextPage
+    public TransactionPage getPageAt(LocalDateTime start, LocalDateTime end, long offset, int pageSize) {
+        List<Object> params = new ArrayList<>();
+        String sql = SELECT_TRANSACTIONS +
+                buildPeriodWhere(start, end, params) +
+                "ORDER BY t.transaction_date DESC, t.id DESC " +
+                "LIMIT ? OFFSET ?";
+        params.add(pageSize + 1);
+        params.add(offset);
+        List<Transaction> rows = queryPage(PAGE_AT, sql, stmt -> bindParams(stmt, params),
+                "Ошибка при получении страницы транзакций");
+        boolean hasNext = trimToPageSize(rows, pageSize);
+        return new TransactionPage(rows, hasNext, offset > 0);
+    }
+
+    // Число строк периода [start, end), как у nextPage и getPageAt
+    public int countTransactions(LocalDateTime start, LocalDateTime end) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM transactions t " + buildPeriodWhere(start, end, params);
+
+        try (QueryTimer timer = COUNT_IN_PERIOD.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                timer.success(1);
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при подсчете транзакций за период: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    public int countTransactions() {
+        String sql = "SELECT COUNT(*) FROM transactions";
+
+        try (QueryTimer timer = COUNT.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            timer.success(1);
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при подсчете транзакций: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private List<Transaction> queryPage(OperationMetrics metrics, String sql, StatementBinder binder,
+                                        String errorMessage) {
+        List<Transaction> transactions = new ArrayList<>();
+
+        try (QueryTimer timer = metrics.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    transactions.add(mapResultSetToTransaction(rs));
+                }
+            }
+            timer.success(transactions.size());
+        } catch (SQLException e) {
+            System.err.println(errorMessage + ": " + e.getMessage());
+        }
+        return transactions;
+    }
+
+    private void bindCursor(PreparedStatement stmt, PageCursor cursor) throws SQLException {
+        Timestamp date = Timestamp.valueOf(cursor.getDate());
+        stmt.setTimestamp(1, date);
+        stmt.setTimestamp(2, date);
+        stmt.setTimestamp(3, date);
+        stmt.setLong(4, cursor.getId());
+    }
+
+    // Запрашивается pageSize + 1 строк: лишняя строка означает, что дальше есть еще данные
+    private boolean trimToPageSize(List<Transaction> rows, int pageSize) {
+        if (rows.size() > pageSize) {
+            rows.remove(rows.size() - 1);
+            return true;
+        }
+        return false;
+    }
+
+    // Потоковые варианты выборок: строки читаются курсором порциями по fetchSize,
+    // поэтому память не зависит от числа строк. Поток держит соединение из пула
+    // до закрытия и должен использоваться в try-with-resources.
+    // Сбой открытия курсора или чтения бросает DataAccessException: пустой поток
+    // всегда означает отсутствие строк, а не ошибку БД.
+    public Stream<Transaction> streamAllTransactions() {
+        String sql = SELECT_TRANSACTIONS +
+                "ORDER BY t.transaction_date DESC";
+        return streamTransactions(STREAM_ALL, sql, stmt -> { },
+                "Ошибка при потоковом чтении всех транзакций");
+    }
+
+    public Stream<Transaction> streamTransactionsByDateRange(LocalDateTime start, LocalDateTime end) {
+        String sql = SELECT_TRANSACTIONS +
+                "WHERE t.transaction_date BETWEEN ? AND ? " +
+                "ORDER BY t.transaction_date DESC";
+        return streamTransactions(STREAM_BY_DATE_RANGE, sql, stmt -> {
+            stmt.setTimestamp(1, Timestamp.valueOf(start));
+            stmt.setTimestamp(2, Timestamp.valueOf(end));
+        }, "Ошибка при потоковом чтении транзакций по диапазону дат");
+    }
+
+    public Stream<Transaction> streamTransactionsByCategory(Long categoryId) {
+        String sql = SELECT_TRANSACTIONS +
+                "WHERE t.category_id = ? " +
+                "ORDER BY t.transaction_date DESC";
+        return streamTransactions(STREAM_BY_CATEGORY, sql, stmt -> stmt.setLong(1, categoryId),
+                "Ошибка при потоковом чтении транзакций по категории");
+    }
+
+    public void forEachTransaction(Consumer<Transaction> action) {
+        try (Stream<Transaction> transactions = streamAllTransactions()) {
+            transactions.forEach(action);
+        }
+    }
+
+    public void forEachTransactionInRange(LocalDateTime start, LocalDateTime end, Consumer<Transaction> action) {
+        try (Stream<Transaction> transactions = streamTransactionsByDateRange(start, end)) {
+            transactions.forEach(action);
+        }
+    }
+
+    // Сканирование строк по возрастанию (дата, id) без создания объектов Transaction.
+    // Границы включительные, null - без ограничения.
+    public boolean scanRows(LocalDateTime start, LocalDateTime end, TransactionRowVisitor visitor) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT t.id, t.type, t.amount, t.category_id, t.transaction_date FROM transactions t " +
+                buildWhere(null, start, end, params) +
+                "ORDER BY t.transaction_date ASC, t.id ASC";
+
+        try (QueryTimer timer = SCAN.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            try (Statement setup = conn.createStatement()) {
+                setup.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(fetchSize);
+                bindParams(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        timer.addRow();
+                        visitor.visit(rs.getLong(1),
+                                TransactionType.INCOME.name().equals(rs.getString(2)),
+                                Money.of(rs.getBigDecimal(3)).getMinorUnits(),
+                                rs.getLong(4),
+                                rs.getTimestamp(5).toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+                    }
+                }
+            } finally {
+                try (Statement reset = conn.createStatement()) {
+                    reset.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+            timer.success();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Ошибка при сканировании транзакций: " + e.getMessage());
+        }
+        return false;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // Замер потока длится до его закрытия; строками считаются фактически прочитанные
+    private Stream<Transaction> streamTransactions(OperationMetrics metrics, String sql, StatementBinder binder,
+                                                   String errorMessage) {
+        QueryTimer timer = metrics.start();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getInstance().getConnection();
+            // Ленивое выполнение: H2 отдает строки по мере чтения, не материализуя результат
+            try (Statement setup = conn.createStatement()) {
+                setup.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            }
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            binder.bind(stmt);
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            closeCursor(rs, stmt, conn);
+            timer.close();
+            throw new DataAccessException(errorMessage, e);
+        }
+        // Ошибкой считается только сбой чтения, ранее закрытие потока - нет
+        timer.success();
+
+        ResultSet cursor = rs;
+        PreparedStatement statement = stmt;
+        Connection connection = conn;
+        Spliterator<Transaction> spliterator = new Spliterators.AbstractSpliterator<Transaction>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    timer.addRow();
+                    action.accept(mapResultSetToTransaction(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    timer.failure();
+                    throw new DataAccessException(errorMessage, e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    closeCursor(cursor, statement, connection);
+                    timer.close();
+                });
+    }
+
+    private void closeCursor(ResultSet rs, Statement stmt, Connection conn) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (stmt != null) {
+                stmt.close();
+            }
+            if (conn != null) {
+                try (Statement setup = conn.createStatement()) {
+                    setup.execute("SET LAZY_QUERY_EXECUTION FALSE");
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Ошибка при закрытии курсора: " + e.getMessage());
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Ошибка при возврате соединения: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public Money getTotalIncome() {
         return getTotalByType(TransactionType.INCOME);
     }
 
-    public BigDecimal getTotalExpense() {
+    public Money getTotalExpense() {
         return getTotalByType(TransactionType.EXPENSE);
     }
 
-    private BigDecimal getTotalByType(TransactionType type) {
+    private Money getTotalByType(TransactionType type) {
         String sql = "SELECT SUM(amount) as total FROM transactions WHERE type = ?";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = TOTAL_BY_TYPE.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, type.name());
             try (ResultSet rs = stmt.executeQuery()) {
+                timer.success(1);
                 if (rs.next()) {
                     BigDecimal total = rs.getBigDecimal("total");
-                    return total != null ? total : BigDecimal.ZERO;
+                    return total != null ? Money.of(total) : Money.ZERO;
                 }
             }
         } catch (SQLException e) {
             System.err.println("Ошибка при получении общей суммы: " + e.getMessage());
         }
-        return BigDecimal.ZERO;
+        return Money.ZERO;
     }
 
-    public boolean deleteTransaction(Long id) {
-        String sql = "DELETE FROM transactions WHERE id = ?";
+    // Агрегаты считаются в SQL (GROUP BY), в Java переносятся только итоговые строки.
+    // start/end == null - без ограничения по дате, type == null - все типы.
+    public Map<TransactionType, AmountSummary> getSummaryByType(LocalDateTime start, LocalDateTime end) {
+        Map<TransactionType, AmountSummary> result = new EnumMap<>(TransactionType.class);
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT t.type, " + SUMMARY_COLUMNS +
+                "FROM transactions t " +
+                buildWhere(null, start, end, params) +
+                "GROUP BY t.type";
+
+        try (QueryTimer timer = SUMMARY_BY_TYPE.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(TransactionType.valueOf(rs.getString("type")), mapSummary(rs));
+                }
+            }
+            timer.success(result.size());
+        } catch (SQLException e) {
+            System.err.println("Ошибка при получении сумм по типам: " + e.getMessage());
+        }
+        return result;
+    }
+
+    public List<CategorySummary> getSummaryByCategory(TransactionType type,
+                                                      LocalDateTime start, LocalDateTime end) {
+        List<CategorySummary> result = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT t.type, t.category_id, " +
+                SUMMARY_COLUMNS +
+                "FROM transactions t " +
+                buildWhere(type, start, end, params) +
+                "GROUP BY t.type, t.category_id " +
+                "ORDER BY total DESC";
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+        try (QueryTimer timer = SUMMARY_BY_CATEGORY.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setLong(1, id);
-            return stmt.executeUpdate() > 0;
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new CategorySummary(mapCategory(rs),
+                            TransactionType.valueOf(rs.getString("type")), mapSummary(rs)));
+                }
+            }
+            timer.success(result.size());
+        } catch (SQLException e) {
+            System.err.println("Ошибка при получении сумм по категориям: " + e.getMessage());
+        }
+        return result;
+    }
+
+    public List<PeriodSummary> getSummaryByPeriod(PeriodUnit unit, TransactionType type,
+                                                  LocalDateTime start, LocalDateTime end) {
+        List<PeriodSummary> result = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        // Единица берется из перечисления, а не от пользователя, поэтому подставляется в текст запроса
+        String period = "CAST(DATE_TRUNC('" + unit.getSqlUnit() + "', t.transaction_date) AS DATE)";
+        String sql = "SELECT " + period + " as period, t.type, " + SUMMARY_COLUMNS +
+                "FROM transactions t " +
+                buildWhere(type, start, end, params) +
+                "GROUP BY " + period + ", t.type " +
+                "ORDER BY period";
+
+        try (QueryTimer timer = SUMMARY_BY_PERIOD.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            bindParams(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new PeriodSummary(rs.getDate("period").toLocalDate(), unit,
+                            TransactionType.valueOf(rs.getString("type")), mapSummary(rs)));
+                }
+            }
+            timer.success(result.size());
+        } catch (SQLException e) {
+            System.err.println("Ошибка при получении сумм по периодам: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private String buildWhere(TransactionType type, LocalDateTime start, LocalDateTime end, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (type != null) {
+            conditions.add("t.type = ?");
+            params.add(type.name());
+        }
+        if (start != null) {
+            conditions.add("t.transaction_date >= ?");
+            params.add(Timestamp.valueOf(start));
+        }
+        if (end != null) {
+            conditions.add("t.transaction_date <= ?");
+            params.add(Timestamp.valueOf(end));
+        }
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
+
+    // Полуоткрытый период [start, end) для постраничного чтения: строка с долями секунды
+    // в последнюю секунду дня попадает и в подсчет, и на страницу
+    private String buildPeriodWhere(LocalDateTime start, LocalDateTime end, List<Object> params) {
+        String where = buildWhere(null, start, null, params);
+        if (end == null) {
+            return where;
+        }
+        params.add(Timestamp.valueOf(end));
+        return where + (where.isEmpty() ? "WHERE " : "AND ") + "t.transaction_date < ? ";
+    }
+
+    private void bindParams(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private AmountSummary mapSummary(ResultSet rs) throws SQLException {
+        return new AmountSummary(rs.getLong("cnt"), Money.of(rs.getBigDecimal("total")),
+                Money.of(rs.getBigDecimal("min_amount")), Money.of(rs.getBigDecimal("max_amount")));
+    }
+
+    public boolean deleteTransaction(Long id) {
+        String selectSql = "SELECT id, type, amount, category_id, transaction_date FROM transactions " +
+                "WHERE id = ? FOR UPDATE";
+        String deleteSql = "DELETE FROM transactions WHERE id = ?";
+
+        try (QueryTimer timer = DELETE.start();
+             Connection conn = DatabaseConnection.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // Удаляемая строка нужна, чтобы вычесть ее из сводных таблиц
+                Transaction existing = null;
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setLong(1, id);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            existing = mapRollupKey(rs);
+                        }
+                    }
+                }
+                if (existing == null) {
+                    conn.rollback();
+                    timer.success(0);
+                    return false;
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
+                    stmt.setLong(1, id);
+                    stmt.executeUpdate();
+                }
+                rollupDAO.apply(conn, Collections.singletonList(existing), true);
+                conn.commit();
+                timer.success(1);
+                fireTransactionDeleted(existing);
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             System.err.println("Ошибка при удалении транзакции: " + e.getMessage());
         }
         return false;
     }
 
+    // Поля транзакции, по которым она учитывается в сводных таблицах
+    private Transaction mapRollupKey(ResultSet rs) throws SQLException {
+        Transaction transaction = new Transaction();
+        transaction.setId(rs.getLong("id"));
+        transaction.setType(TransactionType.valueOf(rs.getString("type")));
+        transaction.setAmount(Money.of(rs.getBigDecimal("amount")));
+        transaction.setDate(rs.getTimestamp("transaction_date").toLocalDateTime());
+        transaction.setCategory(mapCategory(rs));
+        return transaction;
+    }
+
+    public static void addWriteListener(TransactionWriteListener listener) {
+        WRITE_LISTENERS.add(listener);
+    }
+
+    public static void removeWriteListener(TransactionWriteListener listener) {
+        WRITE_LISTENERS.remove(listener);
+    }
+
+    // Ошибка подписчика не должна влиять на уже зафиксированную запись
+    private static void fireTransactionsAdded(List<Transaction> transactions) {
+        for (TransactionWriteListener listener : WRITE_LISTENERS) {
+            try {
+                listener.transactionsAdded(transactions);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика добавления транзакций: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void fireTransactionDeleted(Transaction transaction) {
+        for (TransactionWriteListener listener : WRITE_LISTENERS) {
+            try {
+                listener.transactionDeleted(transaction);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика удаления транзакции: " + e.getMessage());
+            }
+        }
+    }
+
+    static void fireCategoryDeleted(long categoryId) {
+        for (TransactionWriteListener listener : WRITE_LISTENERS) {
+            try {
+                listener.categoryDeleted(categoryId);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика удаления категории: " + e.getMessage());
+            }
+        }
+    }
+
+    static void fireCategoryAdded(Category category) {
+        for (TransactionWriteListener listener : WRITE_LISTENERS) {
+            try {
+                listener.categoryAdded(category);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика добавления категории: " + e.getMessage());
+            }
+        }
+    }
+
+    // Привязка параметров запроса, который выполняется позже
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
     private Transaction mapResultSetToTransaction(ResultSet rs) throws SQLException {
         Transaction transaction = new Transaction();
         transaction.setId(rs.getLong("id"));
         transaction.setType(TransactionType.valueOf(rs.getString("type")));
-        transaction.setAmount(rs.getBigDecimal("amount"));
+        transaction.setAmount(Money.of(rs.getBigDecimal("amount")));
         transaction.setDate(rs.getTimestamp("transaction_date").toLocalDateTime());
         transaction.setDescription(rs.getString("description"));
         if (rs.getTimestamp("created_at") != null) {
@@ -171,22 +942,14 @@ public class TransactionDAO {
             transaction.setCreatedAt(LocalDateTime.now());
         }
 
-        // Если есть категория
-        Long categoryId = rs.getLong("category_id");
-        if (!rs.wasNull()) {
-            Category category = new Category();
-            category.setId(rs.getLong("cat_id"));
-            category.setName(rs.getString("cat_name"));
-
-            String catType = rs.getString("cat_type");
-            if (catType != null) {
-                category.setType(CategoryType.valueOf(catType));
-            }
-
-            category.setColor(rs.getString("cat_color"));
-            transaction.setCategory(category);
-        }
+        transaction.setCategory(mapCategory(rs));
 
         return transaction;
     }
-}
\ No newline at end of file
+
+    // Общий экземпляр категории из кеша вместо нового объекта на каждую строку
+    private Category mapCategory(ResultSet rs) throws SQLException {
+        long categoryId = rs.getLong("category_id");
+        return rs.wasNull() ? null : CategoryDAO.cached(categoryId);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.dao;
+
+import org.example.model.Transaction;
+
+import java.util.Collections;
+import java.util.List;
+
+// Страница транзакций для постраничного просмотра по ключу (keyset pagination)
+public class TransactionPage {
+    private final List<Transaction> items;
+    private final boolean hasNext;
+    private final boolean hasPrevious;
+
+    public TransactionPage(List<Transaction> items, boolean hasNext, boolean hasPrevious) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+    }
+
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    // Курсор для nextPage: последняя строка страницы
+    public PageCursor getNextCursor() {
+        return items.isEmpty() ? null : cursorOf(items.get(items.size() - 1));
+    }
+
+    // Курсор для previousPage: первая строка страницы
+    public PageCursor getPreviousCursor() {
+        return items.isEmpty() ? null : cursorOf(items.get(0));
+    }
+
+    private static PageCursor cursorOf(Transaction transaction) {
+        return new PageCursor(transaction.getDate(), transaction.getId());
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.dao;
+
+// Обработчик строки при сканировании без создания объектов Transaction:
+// сумма в копейках, дата в секундах от эпохи (локальное время как UTC),
+// categoryId = 0, если категории нет
+public interface TransactionRowVisitor {
+    void visit(long id, boolean income, long amountMinor, long categoryId, long epochSecond);
+}
@@ -0,0 +1,25 @@
+package org.example.dao;
+
+import org.example.model.Category;
+import org.example.model.Transaction;
+
+import java.util.List;
+
+// Уведомления о зафиксированных изменениях транзакций. Вызываются после commit
+// в потоке, который выполнил запись, поэтому обработчик должен быть быстрым.
+// Регистрация: TransactionDAO.addWriteListener.
+public interface TransactionWriteListener {
+
+    // Транзакции с уже присвоенными id
+    void transactionsAdded(List<Transaction> transactions);
+
+    // Удаленная транзакция: заполнены id, тип, сумма, дата и id категории
+    void transactionDeleted(Transaction transaction);
+
+    // Категория удалена, ее транзакции остались без категории
+    void categoryDeleted(long categoryId);
+
+    // Новая категория с присвоенным id; транзакций она не затрагивает
+    default void categoryAdded(Category category) {
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.model;
+
+// Агрегат по группе транзакций: количество, сумма, минимум и максимум.
+// min/max равны null, если источник их не хранит (сводные таблицы)
+public class AmountSummary {
+    public static final AmountSummary EMPTY =
+            new AmountSummary(0, Money.ZERO, Money.ZERO, Money.ZERO);
+
+    private final long count;
+    private final Money total;
+    private final Money min;
+    private final Money max;
+
+    public AmountSummary(long count, Money total) {
+        this(count, total, null, null);
+    }
+
+    public AmountSummary(long count, Money total, Money min, Money max) {
+        this.count = count;
+        this.total = total != null ? total : Money.ZERO;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public Money getMin() {
+        return min;
+    }
+
+    public Money getMax() {
+        return max;
+    }
+
+    public Money getAverage() {
+        return count == 0 ? Money.ZERO : total.divide(count);
+    }
+
+    @Override
+    public String toString() {
+        if (min == null || max == null) {
+            return String.format("%d шт., сумма %s", count, total);
+        }
+        return String.format("%d шт., сумма %s (мин. %s, макс. %s)", count, total, min, max);
+    }
+}
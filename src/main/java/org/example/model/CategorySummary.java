@@ -0,0 +1,30 @@
+package org.example.model;
+
+// Агрегат по категории и типу транзакций; category == null - транзакции без категории
+public class CategorySummary {
+    private final Category category;
+    private final TransactionType type;
+    private final AmountSummary summary;
+
+    public CategorySummary(Category category, TransactionType type, AmountSummary summary) {
+        this.category = category;
+        this.type = type;
+        this.summary = summary;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public String getCategoryName() {
+        return category != null ? category.getName() : "Без категории";
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public AmountSummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Денежная сумма с фиксированной точкой: целое число копеек в long.
+// Столбец amount DECIMAL(15, 2) целиком помещается в long, поэтому сложение
+// в циклах агрегации не создает объектов на каждую операцию. Переполнение
+// не проходит молча - арифметика бросает ArithmeticException.
+// В BigDecimal сумма переводится только на границах: JDBC, интерфейс, экспорт.
+public final class Money implements Comparable<Money> {
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long MINOR_PER_MAJOR = 100;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money ofMajor(long majorUnits) {
+        return ofMinor(Math.multiplyExact(majorUnits, MINOR_PER_MAJOR));
+    }
+
+    // Больше двух знаков после запятой - ошибка, а не округление
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    // Разбор строки вида "1500.50" или "1500,50"
+    public static Money parse(String value) {
+        return of(new BigDecimal(value.trim().replace(",", ".")));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long multiplier) {
+        return ofMinor(Math.multiplyExact(minorUnits, multiplier));
+    }
+
+    // Деление с округлением до копейки по правилу HALF_UP
+    public Money divide(long divisor) {
+        long quotient = minorUnits / divisor;
+        long remainder = minorUnits % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += (minorUnits < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return ofMinor(quotient);
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    // Только для отображения (диаграммы)
+    public double toDouble() {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    // Формат без разделителей разрядов: "1500.50", "-0.05"
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
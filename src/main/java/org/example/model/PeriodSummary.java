@@ -0,0 +1,34 @@
+package org.example.model;
+
+import java.time.LocalDate;
+
+// Агрегат по периоду (день, месяц) и типу транзакций
+public class PeriodSummary {
+    private final LocalDate periodStart;
+    private final PeriodUnit unit;
+    private final TransactionType type;
+    private final AmountSummary summary;
+
+    public PeriodSummary(LocalDate periodStart, PeriodUnit unit, TransactionType type, AmountSummary summary) {
+        this.periodStart = periodStart;
+        this.unit = unit;
+        this.type = type;
+        this.summary = summary;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public PeriodUnit getUnit() {
+        return unit;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public AmountSummary getSummary() {
+        return summary;
+    }
+}
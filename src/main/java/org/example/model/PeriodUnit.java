@@ -0,0 +1,116 @@
+package org.example.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+// Единица группировки по времени; sqlUnit - аргумент DATE_TRUNC в H2.
+// Порядок констант - от мелкой единицы к крупной
+public enum PeriodUnit {
+    DAY("День", "по дням", "DAY"),
+    WEEK("Неделя", "по неделям", "ISO_WEEK"),
+    MONTH("Месяц", "по месяцам", "MONTH"),
+    QUARTER("Квартал", "по кварталам", "QUARTER");
+
+    private static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("dd.MM");
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("MM.yyyy");
+
+    private final String displayName;
+    private final String groupingName;
+    private final String sqlUnit;
+
+    PeriodUnit(String displayName, String groupingName, String sqlUnit) {
+        this.displayName = displayName;
+        this.groupingName = groupingName;
+        this.sqlUnit = sqlUnit;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // Подпись группировки для заголовков: "по дням", "по неделям"
+    public String getGroupingName() {
+        return groupingName;
+    }
+
+    public String getSqlUnit() {
+        return sqlUnit;
+    }
+
+    // Самая мелкая единица, при которой период [from, to] дает не больше targetBuckets
+    // интервалов: месяц показывается по дням, год - по неделям или месяцам, несколько лет - по кварталам
+    public static PeriodUnit forRange(LocalDate from, LocalDate to, int targetBuckets) {
+        for (PeriodUnit unit : values()) {
+            if (unit.countPeriods(from, to) <= targetBuckets) {
+                return unit;
+            }
+        }
+        return QUARTER;
+    }
+
+    // Число интервалов, которые затрагивает период [from, to]
+    public long countPeriods(LocalDate from, LocalDate to) {
+        LocalDate first = truncate(from);
+        LocalDate last = truncate(to);
+        switch (this) {
+            case WEEK:
+                return ChronoUnit.WEEKS.between(first, last) + 1;
+            case MONTH:
+                return ChronoUnit.MONTHS.between(first, last) + 1;
+            case QUARTER:
+                return ChronoUnit.MONTHS.between(first, last) / 3 + 1;
+            default:
+                return ChronoUnit.DAYS.between(first, last) + 1;
+        }
+    }
+
+    // Начало периода, в который попадает дата (неделя начинается с понедельника)
+    public LocalDate truncate(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            case QUARTER:
+                return date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+            default:
+                return date;
+        }
+    }
+
+    // Начало следующего периода
+    public LocalDate next(LocalDate periodStart) {
+        switch (this) {
+            case WEEK:
+                return truncate(periodStart).plusWeeks(1);
+            case MONTH:
+                return truncate(periodStart).plusMonths(1);
+            case QUARTER:
+                return truncate(periodStart).plusMonths(3);
+            default:
+                return periodStart.plusDays(1);
+        }
+    }
+
+    // Подпись периода на оси диаграммы
+    public String formatLabel(LocalDate periodStart) {
+        switch (this) {
+            case WEEK:
+                return "с " + periodStart.format(DAY_LABEL);
+            case MONTH:
+                return periodStart.format(MONTH_LABEL);
+            case QUARTER:
+                return "Q" + ((periodStart.getMonthValue() - 1) / 3 + 1) + " " + periodStart.getYear();
+            default:
+                return periodStart.format(DAY_LABEL);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -1,12 +1,11 @@
 package org.example.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public class Transaction {
     private Long id;
     private TransactionType type;
-    private BigDecimal amount;
+    private Money amount;
     private Category category;
     private LocalDateTime date;
     private String description;
@@ -14,7 +13,7 @@ public class Transaction {
 
     public Transaction() {}
 
-    public Transaction(Long id, TransactionType type, BigDecimal amount,
+    public Transaction(Long id, TransactionType type, Money amount,
                        Category category, LocalDateTime date, String description) {
         this.id = id;
         this.type = type;
@@ -42,11 +41,11 @@ public class Transaction {
         this.type = type;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
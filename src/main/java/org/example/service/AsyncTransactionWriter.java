@@ -0,0 +1,267 @@
+package org.example.service;
+
+import org.example.dao.BatchInsertResult;
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Асинхронная запись транзакций с групповой фиксацией.
+// Производители кладут транзакции в ограниченную очередь и не ждут коммита;
+// поток записи забирает пачку до batchSize строк или до истечения maxDelay
+// и фиксирует ее одной транзакцией БД. Переполненная очередь блокирует
+// производителей (обратное давление). flush() гарантирует, что все ранее
+// принятые транзакции зафиксированы и сброшены на диск.
+public class AsyncTransactionWriter {
+    private final TransactionDAO transactionDAO;
+    private final BlockingQueue<WriteRequest> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Thread writerThread;
+    private volatile boolean accepting = true;
+    // Производители держат блокировку чтения от проверки accepting до постановки в очередь;
+    // shutdown после снятия accepting берет блокировку записи и так дожидается, пока
+    // все принятые запросы окажутся в очереди раньше барьера завершения
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    // Поток записи не прерывается (прерывание посреди записи закрывает файл H2):
+    // shutdown ставит в очередь STOP после барьера, а если очередь так и не освободилась,
+    // поток сам завершится, когда дочерпает ее до конца
+    private static final WriteRequest STOP = WriteRequest.barrier();
+    private volatile boolean stopRequested;
+
+    private final AtomicLong committedRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+
+    public AsyncTransactionWriter(TransactionDAO transactionDAO, int capacity, int batchSize, long maxDelayMillis) {
+        this.transactionDAO = transactionDAO;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.writerThread = new Thread(this::runWriter, "financy-async-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Ставит транзакцию в очередь; при заполненной очереди ждет свободного места.
+    // Результат - идентификатор после фиксации пачки.
+    public CompletableFuture<Long> submit(Transaction transaction) throws InterruptedException {
+        WriteRequest request = WriteRequest.write(transaction);
+        acceptLock.readLock().lockInterruptibly();
+        try {
+            checkAccepting();
+            queue.put(request);
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        return request.result;
+    }
+
+    // Неблокирующий вариант: null, если место в очереди не освободилось за timeout
+    public CompletableFuture<Long> offer(Transaction transaction, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        WriteRequest request = WriteRequest.write(transaction);
+        acceptLock.readLock().lockInterruptibly();
+        try {
+            checkAccepting();
+            return queue.offer(request, timeout, unit) ? request.result : null;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    // Ждет фиксации всех транзакций, принятых до вызова, и сброса базы на диск
+    // После shutdown барьер некому обработать, поэтому сразу false
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        WriteRequest barrier = WriteRequest.barrier();
+        acceptLock.readLock().lockInterruptibly();
+        try {
+            if (!accepting || !queue.offer(barrier, timeout, unit)) {
+                return false;
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        return awaitBarrier(barrier, deadline);
+    }
+
+    private boolean awaitBarrier(WriteRequest barrier, long deadline) throws InterruptedException {
+        try {
+            barrier.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            System.err.println("Ошибка при сбросе очереди записи: " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    // Прекращает прием, дописывает очередь и останавливает поток записи
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        accepting = false;
+        if (!acceptLock.writeLock().tryLock(timeout, unit)) {
+            return false;
+        }
+        acceptLock.writeLock().unlock();
+
+        WriteRequest barrier = WriteRequest.barrier();
+        boolean flushed = queue.offer(barrier, remainingNanos(deadline), TimeUnit.NANOSECONDS)
+                && awaitBarrier(barrier, deadline);
+        stopRequested = true;
+        queue.offer(STOP, remainingNanos(deadline), TimeUnit.NANOSECONDS);
+        // join(0) ждет бесконечно, поэтому остаток не меньше миллисекунды
+        writerThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos(deadline))));
+        return flushed && !writerThread.isAlive();
+    }
+
+    private static long remainingNanos(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public long getCommittedRows() {
+        return committedRows.get();
+    }
+
+    public long getFailedRows() {
+        return failedRows.get();
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    private void checkAccepting() {
+        if (!accepting) {
+            throw new IllegalStateException("Асинхронная запись остановлена");
+        }
+    }
+
+    private void runWriter() {
+        List<WriteRequest> batch = new ArrayList<>(batchSize);
+        boolean stopping = false;
+        while (!stopping && !(stopRequested && queue.isEmpty())) {
+            try {
+                WriteRequest first = queue.take();
+                if (first == STOP) {
+                    return;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                // Копим пачку до batchSize или maxDelay; барьер сбрасывает пачку сразу
+                while (batch.size() < batchSize && !batch.get(batch.size() - 1).isBarrier()) {
+                    WriteRequest next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Посторонний interrupt: дописываем накопленное и продолжаем
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка потока асинхронной записи: " + e.getMessage());
+                for (WriteRequest request : batch) {
+                    request.result.completeExceptionally(e);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<WriteRequest> batch) {
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        List<WriteRequest> writes = new ArrayList<>(batch.size());
+        List<WriteRequest> barriers = new ArrayList<>(1);
+        for (WriteRequest request : batch) {
+            if (request.isBarrier()) {
+                barriers.add(request);
+            } else {
+                transactions.add(request.transaction);
+                writes.add(request);
+            }
+        }
+
+        if (!transactions.isEmpty()) {
+            BatchInsertResult result = transactionDAO.addTransactions(transactions, batchSize);
+            for (int i = 0; i < writes.size(); i++) {
+                if (result.isInserted(i)) {
+                    writes.get(i).result.complete(result.getIds().get(i));
+                } else {
+                    writes.get(i).result.completeExceptionally(
+                            new IllegalStateException(result.getFailures().get(i)));
+                }
+            }
+            committedRows.addAndGet(result.getInsertedCount());
+            failedRows.addAndGet(result.getFailedCount());
+            committedBatches.incrementAndGet();
+        }
+
+        if (!barriers.isEmpty()) {
+            boolean synced = DatabaseConnection.getInstance().syncToDisk();
+            for (WriteRequest barrier : barriers) {
+                if (synced) {
+                    barrier.result.complete(null);
+                } else {
+                    barrier.result.completeExceptionally(
+                            new IllegalStateException("Не удалось сбросить базу данных на диск"));
+                }
+            }
+        }
+    }
+
+    // Элемент очереди: транзакция для записи или барьер flush (transaction == null)
+    private static class WriteRequest {
+        private final Transaction transaction;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        private WriteRequest(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        static WriteRequest write(Transaction transaction) {
+            if (transaction == null) {
+                throw new IllegalArgumentException("Транзакция не может быть null");
+            }
+            return new WriteRequest(transaction);
+        }
+
+        static WriteRequest barrier() {
+            return new WriteRequest(null);
+        }
+
+        boolean isBarrier() {
+            return transaction == null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.service;
+
+import org.example.dao.DatabaseConnection;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Общий исполнитель фоновых запросов интерфейса. На JDK 21+ каждая задача
+// получает виртуальный поток (метод ищется через reflection, сборка остается
+// на Java 11); иначе работает ограниченный пул демон-потоков. Параллелизм
+// к БД в любом случае ограничен пулом соединений.
+public class BackgroundExecutor {
+    private static BackgroundExecutor instance;
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    private BackgroundExecutor(ExecutorService executor, boolean virtualThreads) {
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+    }
+
+    public static synchronized BackgroundExecutor getInstance() {
+        if (instance == null) {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            ExecutorService virtual = null;
+            if (Boolean.parseBoolean(db.getProperty("background.virtual.threads", "true"))) {
+                virtual = newVirtualThreadExecutor();
+            }
+            instance = virtual != null
+                    ? new BackgroundExecutor(virtual, true)
+                    : new BackgroundExecutor(newPlatformExecutor(db.getIntProperty("background.threads", 4)), false);
+        }
+        return instance;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Запущенные запросы не прерываются: прерывание посреди записи закрывает файл H2
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "financy-background-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Math.max(1, threads), factory);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.service;
+
+import org.example.dao.DataAccessException;
+import org.example.dao.RollupDAO;
+import org.example.dao.TransactionDAO;
+import org.example.model.AmountSummary;
+import org.example.model.Money;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+import org.example.util.CsvUtil;
+import org.example.util.DateUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Потоковый экспорт транзакций за период в CSV (разделитель ';').
+// Строки читаются курсором БД и сразу пишутся в буферизованный файл, поэтому
+// память не зависит от длины периода. Итоги шапки и число строк для прогресса
+// берутся из сводных таблиц. Файл пишется во временный .part и переименовывается
+// только после успешного завершения; при сбое чтения из БД он удаляется, а результат
+// помечается ошибкой.
+public class CsvExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final TransactionDAO transactionDAO;
+    private final RollupDAO rollupDAO;
+
+    public CsvExportService() {
+        this(new TransactionDAO(), new RollupDAO());
+    }
+
+    public CsvExportService(TransactionDAO transactionDAO, RollupDAO rollupDAO) {
+        this.transactionDAO = transactionDAO;
+        this.rollupDAO = rollupDAO;
+    }
+
+    // cancelRequested проверяется каждые PROGRESS_INTERVAL строк; listener может быть null
+    public ExportResult exportTransactions(LocalDate from, LocalDate to, Path file,
+                                           Consumer<ExportProgress> listener,
+                                           BooleanSupplier cancelRequested) throws IOException {
+        long start = System.nanoTime();
+        Map<TransactionType, AmountSummary> totals = rollupDAO.getTotalsByType(from, to);
+        AmountSummary income = totals.getOrDefault(TransactionType.INCOME, AmountSummary.EMPTY);
+        AmountSummary expense = totals.getOrDefault(TransactionType.EXPENSE, AmountSummary.EMPTY);
+        long totalRows = income.getCount() + expense.getCount();
+
+        Path partFile = file.resolveSibling(file.getFileName() + ".part");
+        long rowsWritten = 0;
+        boolean cancelled = false;
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(partFile), StandardCharsets.UTF_8), BUFFER_SIZE);
+             Stream<Transaction> rows = transactionDAO.streamTransactionsByDateRange(
+                     from.atStartOfDay(), to.atTime(23, 59, 59))) {
+
+            writeHeader(writer, from, to, income.getTotal(), expense.getTotal());
+
+            Iterator<Transaction> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, iterator.next());
+                rowsWritten++;
+
+                if (rowsWritten % PROGRESS_INTERVAL == 0) {
+                    if (cancelRequested.getAsBoolean()) {
+                        cancelled = true;
+                        break;
+                    }
+                    if (listener != null) {
+                        listener.accept(new ExportProgress(rowsWritten, totalRows, elapsedMillis(start)));
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            System.err.println("Ошибка при экспорте транзакций: " + e.getMessage());
+            Files.deleteIfExists(partFile);
+            return ExportResult.failed(file, rowsWritten, elapsedMillis(start), e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+
+        if (cancelled) {
+            Files.deleteIfExists(partFile);
+        } else {
+            Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING);
+            if (listener != null) {
+                listener.accept(new ExportProgress(rowsWritten, totalRows, elapsedMillis(start)));
+            }
+        }
+        return new ExportResult(file, rowsWritten, elapsedMillis(start), cancelled);
+    }
+
+    private void writeHeader(BufferedWriter writer, LocalDate from, LocalDate to,
+                             Money income, Money expense) throws IOException {
+        NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
+        formatter.setMaximumFractionDigits(2);
+        formatter.setMinimumFractionDigits(2);
+
+        writeLine(writer, "Отчет Financy");
+        writeLine(writer, "Период: " + DateUtil.formatDate(from) + " - " + DateUtil.formatDate(to));
+        writeLine(writer, "Доходы: " + formatter.format(income.toBigDecimal()) + " ₽");
+        writeLine(writer, "Расходы: " + formatter.format(expense.toBigDecimal()) + " ₽");
+        writeLine(writer, "Баланс: " + formatter.format(income.minus(expense).toBigDecimal()) + " ₽");
+        writer.newLine();
+        writeLine(writer, "Дата;Тип;Сумма;Категория;Описание");
+    }
+
+    private void writeRow(BufferedWriter writer, Transaction transaction) throws IOException {
+        writer.write(DateUtil.formatDateTime(transaction.getDate()));
+        writer.write(CsvUtil.SEPARATOR);
+        writer.write(transaction.getType().getDisplayName());
+        writer.write(CsvUtil.SEPARATOR);
+        writer.write(transaction.getAmount().toString());
+        writer.write(CsvUtil.SEPARATOR);
+        writer.write(transaction.getCategory() != null
+                ? CsvUtil.escape(transaction.getCategory().getName()) : "-");
+        writer.write(CsvUtil.SEPARATOR);
+        writer.write(CsvUtil.escape(transaction.getDescription()));
+        writer.newLine();
+    }
+
+    private void writeLine(BufferedWriter writer, String line) throws IOException {
+        writer.write(line);
+        writer.newLine();
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,450 @@
+package org.example.service;
+
+import org.example.dao.BatchInsertResult;
+import org.example.dao.CategoryDAO;
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.model.Category;
+import org.example.model.CategoryType;
+import org.example.model.Money;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+import org.example.util.CsvUtil;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Потоковый импорт транзакций из CSV в формате экспорта отчета:
+// Дата;Тип;Сумма;Категория;Описание.
+// Файл читается кусками по chunkSize строк; строки куска разбираются и проверяются
+// параллельно в ForkJoinPool, пока предыдущий кусок пишется в базу пакетной вставкой.
+// В памяти одновременно не больше parallelism + 1 кусков, поэтому расход памяти
+// не зависит от размера файла. Новые категории задачи разбора только помечают
+// заготовкой без id; в базу их пишет поток чтения перед записью куска.
+public class CsvImportService {
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int HEADER_SCAN_LINES = 10;
+    private static final int HEADER_SCAN_BYTES = 64 * 1024;
+    private static final int PARSE_THRESHOLD = 512;
+    private static final int MAX_INTEGER_DIGITS = 13; // DECIMAL(15, 2)
+    private static final int MAX_DESCRIPTION_LENGTH = 500;
+    private static final String NO_CATEGORY = "-";
+    private static final String NEW_CATEGORY_COLOR = "#9E9E9E";
+
+    // STRICT: несуществующие даты вроде 31.02 отклоняются, а не подгоняются
+    private static final DateTimeFormatter DATE_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("dd.MM.uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("dd.MM.uuuu").withResolverStyle(ResolverStyle.STRICT);
+
+    private final TransactionDAO transactionDAO;
+    private final CategoryDAO categoryDAO;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int parallelism;
+
+    public CsvImportService() {
+        this(new TransactionDAO(), new CategoryDAO());
+    }
+
+    public CsvImportService(TransactionDAO transactionDAO, CategoryDAO categoryDAO) {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        this.transactionDAO = transactionDAO;
+        this.categoryDAO = categoryDAO;
+        this.chunkSize = Math.max(1, db.getIntProperty("import.chunk.size", 5000));
+        this.batchSize = Math.max(1, db.getIntProperty("db.batch.size", 500));
+        int configured = db.getIntProperty("import.parallelism", 0);
+        this.parallelism = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Импортирует файл. Неизвестные категории создаются при createMissingCategories,
+    // иначе такие строки отклоняются. listener может быть null.
+    public ImportResult importFile(Path file, boolean createMissingCategories,
+                                   Consumer<ImportProgress> listener) throws IOException {
+        return importFile(file, createMissingCategories, listener,
+                () -> Thread.currentThread().isInterrupted());
+    }
+
+    // cancelRequested проверяется между кусками: импорт останавливается,
+    // уже записанные куски остаются в базе. Прерывать поток импорта не стоит -
+    // прерывание посреди записи закрывает файл базы H2.
+    public ImportResult importFile(Path file, boolean createMissingCategories,
+                                   Consumer<ImportProgress> listener,
+                                   BooleanSupplier cancelRequested) throws IOException {
+        ImportRun run = new ImportRun(Files.size(file), createMissingCategories, listener);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+
+        try (CountingInputStream input = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            run.input = input;
+            long lineNumber = skipPreamble(reader);
+            List<String> lines = new ArrayList<>(chunkSize);
+            long chunkStart = lineNumber + 1;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (cancelRequested.getAsBoolean()) {
+                    run.cancelled = true;
+                    break;
+                }
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() >= chunkSize) {
+                    inFlight.add(submit(pool, run, lines, chunkStart));
+                    lines = new ArrayList<>(chunkSize);
+                    chunkStart = lineNumber + 1;
+                    if (inFlight.size() > parallelism) {
+                        write(inFlight.poll(), run);
+                    }
+                }
+            }
+            if (!run.cancelled && !lines.isEmpty()) {
+                inFlight.add(submit(pool, run, lines, chunkStart));
+            }
+
+            while (!inFlight.isEmpty()) {
+                Chunk chunk = inFlight.poll();
+                if (run.cancelled || cancelRequested.getAsBoolean()) {
+                    run.cancelled = true;
+                    chunk.task.cancel(true);
+                } else {
+                    write(chunk, run);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return run.toResult();
+    }
+
+    // Пропускает BOM и строки перед заголовком "Дата;..." (шапка отчета),
+    // если заголовок есть в первых строках. Возвращает число пропущенных строк.
+    private long skipPreamble(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+
+        reader.mark(HEADER_SCAN_BYTES);
+        for (int i = 1; i <= HEADER_SCAN_LINES; i++) {
+            String line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            if (isHeader(line)) {
+                return i;
+            }
+        }
+        try {
+            reader.reset();
+        } catch (IOException e) {
+            // Первые строки длиннее буфера разметки - читаем файл заново нельзя
+            throw new IOException("Слишком длинные строки в начале файла", e);
+        }
+        return 0;
+    }
+
+    private boolean isHeader(String line) {
+        String trimmed = line.trim();
+        return trimmed.regionMatches(true, 0, "Дата" + CsvUtil.SEPARATOR, 0, 5);
+    }
+
+    private Chunk submit(ForkJoinPool pool, ImportRun run, List<String> lines, long firstLine) {
+        Chunk chunk = new Chunk(lines, firstLine);
+        chunk.task = new ParseTask(chunk, run, 0, lines.size());
+        pool.execute(chunk.task);
+        return chunk;
+    }
+
+    // Дожидается разбора куска, создает встреченные в нем новые категории
+    // и пишет корректные строки пакетами
+    private void write(Chunk chunk, ImportRun run) {
+        chunk.task.join();
+
+        List<Transaction> valid = new ArrayList<>(chunk.lines.size());
+        List<Long> validLines = new ArrayList<>(chunk.lines.size());
+        for (int i = 0; i < chunk.parsed.length; i++) {
+            long lineNumber = chunk.firstLine + i;
+            if (chunk.errors[i] != null) {
+                run.reject(lineNumber, chunk.errors[i]);
+            } else if (chunk.parsed[i] != null && !run.createPending(chunk.parsed[i].getCategory())) {
+                run.reject(lineNumber, "Не удалось создать категорию: " + chunk.parsed[i].getCategory().getName());
+            } else if (chunk.parsed[i] != null) {
+                valid.add(chunk.parsed[i]);
+                validLines.add(lineNumber);
+            }
+        }
+        run.linesRead += chunk.lines.size();
+
+        if (!valid.isEmpty()) {
+            BatchInsertResult result = transactionDAO.addTransactions(valid, batchSize);
+            for (Map.Entry<Integer, String> failure : result.getFailures().entrySet()) {
+                run.reject(validLines.get(failure.getKey()), failure.getValue());
+            }
+            run.importedRows += result.getInsertedCount();
+        }
+        run.reportProgress();
+    }
+
+    private Transaction parseLine(String line, ImportRun run) {
+        List<String> fields = CsvUtil.parseLine(line);
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("Ожидалось не менее 4 полей, найдено " + fields.size());
+        }
+
+        LocalDateTime date = parseDate(fields.get(0).trim());
+        TransactionType type = parseType(fields.get(1).trim());
+        Money amount = parseAmount(fields.get(2));
+        Category category = run.resolveCategory(fields.get(3).trim(), type);
+
+        String description = fields.size() > 4 ? fields.get(4).trim() : "";
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("Описание длиннее " + MAX_DESCRIPTION_LENGTH + " символов");
+        }
+        return new Transaction(null, type, amount, category, date,
+                description.isEmpty() ? null : description);
+    }
+
+    private LocalDateTime parseDate(String value) {
+        try {
+            if (value.length() > 10) {
+                return LocalDateTime.parse(value, DATE_TIME_FORMATTER);
+            }
+            return LocalDate.parse(value, DATE_FORMATTER).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректная дата: " + value);
+        }
+    }
+
+    private TransactionType parseType(String value) {
+        for (TransactionType type : TransactionType.values()) {
+            if (type.getDisplayName().equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип транзакции: " + value);
+    }
+
+    private Money parseAmount(String value) {
+        String normalized = value.replace("₽", "").replace("\u00A0", "").replace(" ", "").replace(",", ".");
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(normalized);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная сумма: " + value.trim());
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Сумма должна быть больше нуля: " + value.trim());
+        }
+        if (amount.scale() > 2) {
+            throw new IllegalArgumentException("Больше двух знаков после запятой: " + value.trim());
+        }
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS) {
+            throw new IllegalArgumentException("Слишком большая сумма: " + value.trim());
+        }
+        return Money.of(amount);
+    }
+
+    // Состояние одного импорта. Счетчики меняет только поток чтения,
+    // справочник категорий читают и пополняют заготовками задачи разбора.
+    private class ImportRun {
+        private final long totalBytes;
+        private final boolean createMissingCategories;
+        private final Consumer<ImportProgress> listener;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Category> categories = new ConcurrentHashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        // Заготовки, которые не удалось записать: повторно в этом импорте не пробуем
+        private final Set<Category> failedCategories = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private CountingInputStream input;
+        private long linesRead;
+        private long importedRows;
+        private long rejectedRows;
+        private volatile boolean cancelled;
+
+        ImportRun(long totalBytes, boolean createMissingCategories, Consumer<ImportProgress> listener) {
+            this.totalBytes = totalBytes;
+            this.createMissingCategories = createMissingCategories;
+            this.listener = listener;
+            for (Category category : categoryDAO.getAllCategories()) {
+                categories.putIfAbsent(categoryKey(category.getName(), category.getType()), category);
+            }
+        }
+
+        Category resolveCategory(String name, TransactionType transactionType) {
+            if (name.isEmpty() || NO_CATEGORY.equals(name)) {
+                return null;
+            }
+            CategoryType type = CategoryType.valueOf(transactionType.name());
+            String key = categoryKey(name, type);
+            Category category = categories.get(key);
+            if (category == null && createMissingCategories) {
+                // Только заготовка без обращения к базе: одна на имя для всех задач
+                category = categories.computeIfAbsent(key, k -> new Category(name, type, NEW_CATEGORY_COLOR));
+            }
+            if (category == null) {
+                throw new IllegalArgumentException("Неизвестная категория: " + name);
+            }
+            return category;
+        }
+
+        // Вызывается потоком чтения: записывает заготовку категории в базу при первой
+        // встрече (id появляется у общего экземпляра). false, если создать не удалось
+        boolean createPending(Category category) {
+            if (category == null || category.getId() != null) {
+                return true;
+            }
+            if (failedCategories.contains(category) || !categoryDAO.addCategory(category)) {
+                failedCategories.add(category);
+                return false;
+            }
+            return true;
+        }
+
+        private String categoryKey(String name, CategoryType type) {
+            return type.name() + ":" + name.trim().toLowerCase(Locale.ROOT);
+        }
+
+        void reject(long lineNumber, String message) {
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Строка " + lineNumber + ": " + message);
+            }
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        void reportProgress() {
+            if (listener != null) {
+                listener.accept(new ImportProgress(input.getCount(), totalBytes,
+                        linesRead, importedRows, rejectedRows, elapsedMillis()));
+            }
+        }
+
+        ImportResult toResult() {
+            return new ImportResult(linesRead, importedRows, rejectedRows,
+                    elapsedMillis(), cancelled, errors);
+        }
+    }
+
+    // Кусок файла: исходные строки и результат разбора по позициям
+    private static class Chunk {
+        private final List<String> lines;
+        private final long firstLine;
+        private final Transaction[] parsed;
+        private final String[] errors;
+        private ParseTask task;
+
+        Chunk(List<String> lines, long firstLine) {
+            this.lines = lines;
+            this.firstLine = firstLine;
+            this.parsed = new Transaction[lines.size()];
+            this.errors = new String[lines.size()];
+        }
+    }
+
+    // Делит кусок пополам, пока диапазон не станет меньше PARSE_THRESHOLD
+    private class ParseTask extends RecursiveAction {
+        private final Chunk chunk;
+        private final ImportRun run;
+        private final int from;
+        private final int to;
+
+        ParseTask(Chunk chunk, ImportRun run, int from, int to) {
+            this.chunk = chunk;
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARSE_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(chunk, run, from, middle), new ParseTask(chunk, run, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                String line = chunk.lines.get(i);
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    chunk.parsed[i] = parseLine(line, run);
+                } catch (IllegalArgumentException e) {
+                    chunk.errors[i] = e.getMessage();
+                } catch (RuntimeException e) {
+                    // Непредвиденная ошибка в строке отклоняет строку, а не весь импорт
+                    chunk.errors[i] = "Ошибка разбора: " + e;
+                }
+            }
+        }
+    }
+
+    // Считает прочитанные байты для индикатора прогресса
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.service;
+
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Зафиксированное изменение данных. Несет затронутые id, типы транзакций
+// и диапазон дат, чтобы подписчик мог обновить только то, что изменилось.
+// Для событий категорий диапазон дат не задан: удаление категории затрагивает
+// транзакции за любой период.
+public final class DataChangeEvent {
+
+    public enum Kind {
+        TRANSACTIONS_ADDED,
+        TRANSACTIONS_DELETED,
+        CATEGORY_ADDED,
+        CATEGORY_DELETED
+    }
+
+    private final Kind kind;
+    private final List<Long> transactionIds;
+    private final List<Transaction> transactions;
+    private final Set<TransactionType> types;
+    private final Long categoryId;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    private DataChangeEvent(Kind kind, List<Transaction> transactions, Long categoryId) {
+        this.kind = kind;
+        this.transactions = Collections.unmodifiableList(new ArrayList<>(transactions));
+        this.categoryId = categoryId;
+
+        List<Long> ids = new ArrayList<>(transactions.size());
+        Set<TransactionType> affectedTypes = EnumSet.noneOf(TransactionType.class);
+        LocalDate min = null;
+        LocalDate max = null;
+        for (Transaction transaction : transactions) {
+            ids.add(transaction.getId());
+            affectedTypes.add(transaction.getType());
+            LocalDate day = transaction.getDate().toLocalDate();
+            if (min == null || day.isBefore(min)) {
+                min = day;
+            }
+            if (max == null || day.isAfter(max)) {
+                max = day;
+            }
+        }
+        this.transactionIds = Collections.unmodifiableList(ids);
+        this.types = Collections.unmodifiableSet(affectedTypes);
+        this.fromDate = min;
+        this.toDate = max;
+    }
+
+    public static DataChangeEvent transactionsAdded(List<Transaction> transactions) {
+        return new DataChangeEvent(Kind.TRANSACTIONS_ADDED, transactions, null);
+    }
+
+    public static DataChangeEvent transactionDeleted(Transaction transaction) {
+        return new DataChangeEvent(Kind.TRANSACTIONS_DELETED, Collections.singletonList(transaction), null);
+    }
+
+    public static DataChangeEvent categoryAdded(long categoryId) {
+        return new DataChangeEvent(Kind.CATEGORY_ADDED, Collections.emptyList(), categoryId);
+    }
+
+    public static DataChangeEvent categoryDeleted(long categoryId) {
+        return new DataChangeEvent(Kind.CATEGORY_DELETED, Collections.emptyList(), categoryId);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isTransactionChange() {
+        return kind == Kind.TRANSACTIONS_ADDED || kind == Kind.TRANSACTIONS_DELETED;
+    }
+
+    public boolean isCategoryChange() {
+        return kind == Kind.CATEGORY_ADDED || kind == Kind.CATEGORY_DELETED;
+    }
+
+    public List<Long> getTransactionIds() {
+        return transactionIds;
+    }
+
+    // Добавленные транзакции целиком; у удаленной заполнены id, тип, сумма, дата и id категории
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    public Set<TransactionType> getTypes() {
+        return types;
+    }
+
+    public boolean affects(TransactionType type) {
+        return types.contains(type);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    // Пересекаются ли затронутые транзакции с периодом [from, to]; null - без ограничения.
+    // Удаление категории меняет подписи транзакций за любой период
+    public boolean affectsPeriod(LocalDate from, LocalDate to) {
+        if (kind == Kind.CATEGORY_DELETED) {
+            return true;
+        }
+        if (fromDate == null) {
+            return false;
+        }
+        return (to == null || !fromDate.isAfter(to)) && (from == null || !toDate.isBefore(from));
+    }
+
+    @Override
+    public String toString() {
+        if (isCategoryChange()) {
+            return kind + " категория " + categoryId;
+        }
+        return kind + " транзакций: " + transactionIds.size() + ", период " + fromDate + " - " + toDate;
+    }
+}
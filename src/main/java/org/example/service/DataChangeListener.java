@@ -0,0 +1,8 @@
+package org.example.service;
+
+// Подписчик на изменения данных. Вызывается в потоке, который выполнил запись
+// (EDT, поток импорта или асинхронной записи), поэтому интерфейс сам переносит
+// обновление в EDT.
+public interface DataChangeListener {
+    void dataChanged(DataChangeEvent event);
+}
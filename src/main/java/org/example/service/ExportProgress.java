@@ -0,0 +1,43 @@
+package org.example.service;
+
+// Снимок хода экспорта для индикатора прогресса
+public class ExportProgress {
+    private final long rowsWritten;
+    private final long totalRows;
+    private final long elapsedMillis;
+
+    public ExportProgress(long rowsWritten, long totalRows, long elapsedMillis) {
+        this.rowsWritten = rowsWritten;
+        this.totalRows = totalRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Доля записанных строк, 0..100
+    public int getPercent() {
+        if (totalRows <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, rowsWritten * 100 / totalRows);
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? rowsWritten * 1000 / elapsedMillis : rowsWritten;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Записано: %d из %d, %d строк/с", rowsWritten, totalRows, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.service;
+
+import java.nio.file.Path;
+
+// Итог экспорта. При отмене или ошибке чтения файл не создается.
+public class ExportResult {
+    private final Path file;
+    private final long rowsWritten;
+    private final long elapsedMillis;
+    private final boolean cancelled;
+    private final String error;
+
+    public ExportResult(Path file, long rowsWritten, long elapsedMillis, boolean cancelled) {
+        this(file, rowsWritten, elapsedMillis, cancelled, null);
+    }
+
+    private ExportResult(Path file, long rowsWritten, long elapsedMillis, boolean cancelled, String error) {
+        this.file = file;
+        this.rowsWritten = rowsWritten;
+        this.elapsedMillis = elapsedMillis;
+        this.cancelled = cancelled;
+        this.error = error;
+    }
+
+    public static ExportResult failed(Path file, long rowsWritten, long elapsedMillis, String error) {
+        return new ExportResult(file, rowsWritten, elapsedMillis, false, error);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Строк: %d, %.1f с%s", rowsWritten, elapsedMillis / 1000.0,
+                cancelled ? ", прервано" : error != null ? ", ошибка: " + error : "");
+    }
+}
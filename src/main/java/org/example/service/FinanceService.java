@@ -1,36 +1,215 @@
 package org.example.service;
 
+import org.example.analytics.TransactionColumnStore;
+import org.example.dao.BatchInsertResult;
+import org.example.dao.DatabaseConnection;
+import org.example.dao.PageCursor;
+import org.example.dao.RollupDAO;
 import org.example.dao.TransactionDAO;
+import org.example.dao.TransactionPage;
+import org.example.dao.TransactionWriteListener;
 import org.example.dao.CategoryDAO;
-import org.example.model.Transaction;
-import org.example.model.TransactionType;
+import org.example.model.AmountSummary;
 import org.example.model.Category;
+import org.example.model.CategorySummary;
 import org.example.model.CategoryType;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+// Один экземпляр на приложение: создается в Main и передается всем панелям.
+// Любая зафиксированная запись (из интерфейса, импорта или асинхронной очереди)
+// превращается в DataChangeEvent для подписчиков.
 public class FinanceService {
     private TransactionDAO transactionDAO;
     private CategoryDAO categoryDAO;
+    private RollupDAO rollupDAO;
+    private ReportService reportService;
+    private RunningTotals runningTotals;
+    private AsyncTransactionWriter asyncWriter;
+
+    private final List<DataChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final TransactionWriteListener writeListener = new TransactionWriteListener() {
+        @Override
+        public void transactionsAdded(List<Transaction> transactions) {
+            runningTotals.markStale();
+            fireDataChanged(DataChangeEvent.transactionsAdded(transactions));
+        }
+
+        @Override
+        public void transactionDeleted(Transaction transaction) {
+            runningTotals.markStale();
+            fireDataChanged(DataChangeEvent.transactionDeleted(transaction));
+        }
+
+        @Override
+        public void categoryDeleted(long categoryId) {
+            fireDataChanged(DataChangeEvent.categoryDeleted(categoryId));
+        }
+
+        @Override
+        public void categoryAdded(Category category) {
+            fireDataChanged(DataChangeEvent.categoryAdded(category.getId()));
+        }
+    };
 
     public FinanceService() {
         this.transactionDAO = new TransactionDAO();
         this.categoryDAO = new CategoryDAO();
+        this.rollupDAO = new RollupDAO();
+        this.reportService = new ReportService(transactionDAO, categoryDAO);
+        this.runningTotals = new RunningTotals(rollupDAO);
+        TransactionDAO.addWriteListener(writeListener);
+    }
+
+    public void addDataChangeListener(DataChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeDataChangeListener(DataChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // Отписывает сервис от уведомлений DAO; после вызова события не рассылаются.
+    // Асинхронная очередь дописывается, но не дольше async.shutdown.timeout.ms
+    public void close() {
+        long timeoutMs = DatabaseConnection.getInstance().getLongProperty("async.shutdown.timeout.ms", 10_000);
+        try {
+            if (!shutdownAsyncIngestion(timeoutMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("Ошибка при закрытии: очередь асинхронной записи не дописана за "
+                        + timeoutMs + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Ошибка при закрытии: прервано ожидание очереди асинхронной записи");
+        }
+        TransactionDAO.removeWriteListener(writeListener);
+        changeListeners.clear();
+        reportService.close();
+    }
+
+    // Ошибка подписчика не должна мешать остальным и самой записи
+    private void fireDataChanged(DataChangeEvent event) {
+        for (DataChangeListener listener : changeListeners) {
+            try {
+                listener.dataChanged(event);
+            } catch (RuntimeException e) {
+                System.err.println("Ошибка обработчика изменения данных: " + e.getMessage());
+            }
+        }
     }
 
     public boolean addTransaction(Transaction transaction) {
         return transactionDAO.addTransaction(transaction);
     }
 
+    public BatchInsertResult addTransactions(Collection<Transaction> transactions) {
+        return transactionDAO.addTransactions(transactions);
+    }
+
+    // Асинхронный режим записи для импорта и автоматизации: транзакции копятся
+    // в очереди и фиксируются пачками, производитель не ждет коммита каждой строки
+    public synchronized void enableAsyncIngestion() {
+        if (asyncWriter == null) {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            asyncWriter = new AsyncTransactionWriter(transactionDAO,
+                    db.getIntProperty("async.queue.capacity", 10_000),
+                    db.getIntProperty("async.batch.size", 500),
+                    db.getLongProperty("async.max.delay.ms", 50));
+        }
+    }
+
+    public CompletableFuture<Long> submitTransaction(Transaction transaction) throws InterruptedException {
+        return requireAsyncWriter().submit(transaction);
+    }
+
+    public CompletableFuture<Long> trySubmitTransaction(Transaction transaction, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return requireAsyncWriter().offer(transaction, timeout, unit);
+    }
+
+    public boolean flushAsyncWrites(long timeout, TimeUnit unit) throws InterruptedException {
+        AsyncTransactionWriter writer;
+        synchronized (this) {
+            writer = asyncWriter;
+        }
+        return writer == null || writer.flush(timeout, unit);
+    }
+
+    public synchronized AsyncTransactionWriter getAsyncWriter() {
+        return asyncWriter;
+    }
+
+    public boolean shutdownAsyncIngestion(long timeout, TimeUnit unit) throws InterruptedException {
+        AsyncTransactionWriter writer;
+        synchronized (this) {
+            writer = asyncWriter;
+            asyncWriter = null;
+        }
+        return writer == null || writer.shutdown(timeout, unit);
+    }
+
+    private synchronized AsyncTransactionWriter requireAsyncWriter() {
+        if (asyncWriter == null) {
+            throw new IllegalStateException("Асинхронная запись не включена");
+        }
+        return asyncWriter;
+    }
+
     public List<Transaction> getAllTransactions() {
         return transactionDAO.getAllTransactions();
     }
 
+    public TransactionPage getFirstTransactionPage(int pageSize) {
+        return transactionDAO.getFirstPage(pageSize);
+    }
+
+    public TransactionPage getNextTransactionPage(PageCursor after, int pageSize) {
+        return transactionDAO.nextPage(after, pageSize);
+    }
+
+    public TransactionPage getPreviousTransactionPage(PageCursor before, int pageSize) {
+        return transactionDAO.previousPage(before, pageSize);
+    }
+
+    public int getTransactionCount() {
+        return transactionDAO.countTransactions();
+    }
+
+    // Страницы периода [start, end) для виртуальных таблиц: конец не входит, null - без ограничения
+    public TransactionPage getTransactionPage(LocalDateTime start, LocalDateTime end, PageCursor after, int pageSize) {
+        return transactionDAO.nextPage(start, end, after, pageSize);
+    }
+
+    public TransactionPage getTransactionPageAt(LocalDateTime start, LocalDateTime end, long offset, int pageSize) {
+        return transactionDAO.getPageAt(start, end, offset, pageSize);
+    }
+
+    // Число строк периода [start, end) берется из колоночного хранилища без обращения к БД.
+    // Границы те же, что у getTransactionPage, иначе подсчитанная строка может не попасть ни на одну страницу
+    public int getTransactionCount(LocalDateTime start, LocalDateTime end) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.countInPeriod(start, end);
+        }
+        return transactionDAO.countTransactions(start, end);
+    }
+
     public List<Transaction> getTransactionsByDateRange(LocalDateTime start, LocalDateTime end) {
         return transactionDAO.getTransactionsByDateRange(start, end);
     }
@@ -55,31 +234,137 @@ public class FinanceService {
         return categoryDAO.getCategoriesByType(CategoryType.EXPENSE);
     }
 
-    public BigDecimal getTotalIncome() {
-        return transactionDAO.getTotalIncome();
+    // Итоги за все время: копия running_totals в памяти, перечитывается только после записей.
+    // Если таблица недоступна - суммы по сводным таблицам или колоночному хранилищу
+    public Map<TransactionType, AmountSummary> getRunningTotals() {
+        Map<TransactionType, AmountSummary> totals = runningTotals.get();
+        return totals != null ? totals : getTotalsForDays(null, null);
     }
 
-    public BigDecimal getTotalExpense() {
-        return transactionDAO.getTotalExpense();
+    // Пересчитывает итоги по таблице transactions и сравнивает с running_totals
+    public boolean verifyRunningTotals() {
+        return rollupDAO.verifyRunningTotals();
     }
 
-    public BigDecimal getBalance() {
-        return getTotalIncome().subtract(getTotalExpense());
+    public Money getTotalIncome() {
+        return getRunningTotals()
+                .getOrDefault(TransactionType.INCOME, AmountSummary.EMPTY).getTotal();
     }
 
-    public Map<String, BigDecimal> getExpensesByCategory() {
-        Map<String, BigDecimal> result = new HashMap<>();
-        List<Transaction> transactions = getAllTransactions();
+    public Money getTotalExpense() {
+        return getRunningTotals()
+                .getOrDefault(TransactionType.EXPENSE, AmountSummary.EMPTY).getTotal();
+    }
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getType() == TransactionType.EXPENSE &&
-                    transaction.getCategory() != null) {
-                String categoryName = transaction.getCategory().getName();
-                BigDecimal amount = result.getOrDefault(categoryName, BigDecimal.ZERO);
-                result.put(categoryName, amount.add(transaction.getAmount()));
-            }
+    public Money getBalance() {
+        Map<TransactionType, AmountSummary> totals = getRunningTotals();
+        return totals.getOrDefault(TransactionType.INCOME, AmountSummary.EMPTY).getTotal()
+                .minus(totals.getOrDefault(TransactionType.EXPENSE, AmountSummary.EMPTY).getTotal());
+    }
+
+    // Расходы по категориям за все время, по убыванию суммы
+    public Map<String, Money> getExpensesByCategory() {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return toExpenseMap(store.getTotalsByCategory(TransactionType.EXPENSE, null, null, categoriesById()));
+        }
+        return toExpenseMap(rollupDAO.getTotalsByCategory(TransactionType.EXPENSE, null, null));
+    }
+
+    public Map<String, Money> getExpensesByCategory(LocalDateTime start, LocalDateTime end) {
+        return toExpenseMap(getCategorySummary(TransactionType.EXPENSE, start, end));
+    }
+
+    // Суммы за целые дни [from, to]; null - без ограничения.
+    // Считаются по колоночному хранилищу, без него - по сводным таблицам
+    public Map<TransactionType, AmountSummary> getTotalsForDays(LocalDate from, LocalDate to) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.getTotalsByType(startOfDay(from), endOfDay(to));
+        }
+        return rollupDAO.getTotalsByType(from, to);
+    }
+
+    public List<PeriodSummary> getPeriodTotals(PeriodUnit unit, LocalDate from, LocalDate to) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.getTotalsByPeriod(unit, startOfDay(from), endOfDay(to));
+        }
+        return rollupDAO.getTotalsByPeriod(unit, from, to);
+    }
+
+    // Отчет по спецификации: все метрики за один проход; null при ошибке чтения
+    public Report generateReport(ReportSpec spec) {
+        return reportService.generate(spec);
+    }
+
+    public ReportCacheStats getReportCacheStats() {
+        return reportService.getCacheStats();
+    }
+
+    public boolean rebuildRollups() {
+        boolean rebuilt = rollupDAO.rebuild();
+        runningTotals.markStale();
+        return rebuilt;
+    }
+
+    public Map<TransactionType, AmountSummary> getSummaryForPeriod(LocalDateTime start, LocalDateTime end) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.getTotalsByType(start, end);
+        }
+        return transactionDAO.getSummaryByType(start, end);
+    }
+
+    public List<CategorySummary> getCategorySummary(TransactionType type, LocalDateTime start, LocalDateTime end) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.getTotalsByCategory(type, start, end, categoriesById());
+        }
+        return transactionDAO.getSummaryByCategory(type, start, end);
+    }
+
+    public List<PeriodSummary> getPeriodSummary(PeriodUnit unit, LocalDateTime start, LocalDateTime end) {
+        TransactionColumnStore store = analytics();
+        if (store != null) {
+            return store.getTotalsByPeriod(unit, start, end);
+        }
+        return transactionDAO.getSummaryByPeriod(unit, null, start, end);
+    }
+
+    // Колоночное хранилище, если оно включено и загрузилось; иначе null и запросы идут в БД
+    private TransactionColumnStore analytics() {
+        if (!TransactionColumnStore.isEnabled()) {
+            return null;
+        }
+        TransactionColumnStore store = TransactionColumnStore.getInstance();
+        return store.ensureLoaded() ? store : null;
+    }
+
+    private Map<Long, Category> categoriesById() {
+        Map<Long, Category> categories = new HashMap<>();
+        for (Category category : categoryDAO.getAllCategories()) {
+            categories.put(category.getId(), category);
         }
+        return categories;
+    }
+
+    private LocalDateTime startOfDay(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+
+    private LocalDateTime endOfDay(LocalDate date) {
+        return date != null ? date.atTime(23, 59, 59) : null;
+    }
 
+    // Одноименные категории (разных типов или дубли) суммируются, как раньше группировка по имени
+    private Map<String, Money> toExpenseMap(List<CategorySummary> rows) {
+        Map<String, Money> result = new LinkedHashMap<>();
+        for (CategorySummary row : rows) {
+            if (row.getCategory() != null) {
+                result.merge(row.getCategoryName(), row.getSummary().getTotal(), Money::plus);
+            }
+        }
         return result;
     }
 
@@ -95,19 +380,22 @@ public class FinanceService {
         return categoryDAO.deleteCategory(id);
     }
 
-    public BigDecimal getIncomeForPeriod(LocalDateTime start, LocalDateTime end) {
-        List<Transaction> transactions = getTransactionsByDateRange(start, end);
-        return transactions.stream()
-                .filter(t -> t.getType() == TransactionType.INCOME)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Money getIncomeForPeriod(LocalDateTime start, LocalDateTime end) {
+        return getSummaryForPeriod(start, end)
+                .getOrDefault(TransactionType.INCOME, AmountSummary.EMPTY).getTotal();
+    }
+
+    public Money getExpenseForPeriod(LocalDateTime start, LocalDateTime end) {
+        return getSummaryForPeriod(start, end)
+                .getOrDefault(TransactionType.EXPENSE, AmountSummary.EMPTY).getTotal();
+    }
+
+    // Потоковый обход транзакций периода без загрузки всего списка в память
+    public Stream<Transaction> streamTransactionsByDateRange(LocalDateTime start, LocalDateTime end) {
+        return transactionDAO.streamTransactionsByDateRange(start, end);
     }
 
-    public BigDecimal getExpenseForPeriod(LocalDateTime start, LocalDateTime end) {
-        List<Transaction> transactions = getTransactionsByDateRange(start, end);
-        return transactions.stream()
-                .filter(t -> t.getType() == TransactionType.EXPENSE)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public void forEachTransactionInRange(LocalDateTime start, LocalDateTime end, Consumer<Transaction> action) {
+        transactionDAO.forEachTransactionInRange(start, end, action);
     }
 }
\ No newline at end of file
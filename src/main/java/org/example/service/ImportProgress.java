@@ -0,0 +1,63 @@
+package org.example.service;
+
+// Снимок хода импорта для индикатора прогресса
+public class ImportProgress {
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long linesRead;
+    private final long importedRows;
+    private final long rejectedRows;
+    private final long elapsedMillis;
+
+    public ImportProgress(long bytesRead, long totalBytes, long linesRead,
+                          long importedRows, long rejectedRows, long elapsedMillis) {
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.linesRead = linesRead;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Доля прочитанного файла, 0..100
+    public int getPercent() {
+        if (totalBytes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, bytesRead * 100 / totalBytes);
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? importedRows * 1000 / elapsedMillis : importedRows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Импортировано: %d, отклонено: %d, %d строк/с",
+                importedRows, rejectedRows, getRowsPerSecond());
+    }
+}
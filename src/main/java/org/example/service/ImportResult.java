@@ -0,0 +1,60 @@
+package org.example.service;
+
+import java.util.Collections;
+import java.util.List;
+
+// Итог импорта: счетчики, время и первые ошибки (полный список не храним,
+// чтобы память не росла вместе с размером файла)
+public class ImportResult {
+    private final long linesRead;
+    private final long importedRows;
+    private final long rejectedRows;
+    private final long elapsedMillis;
+    private final boolean cancelled;
+    private final List<String> errors;
+
+    public ImportResult(long linesRead, long importedRows, long rejectedRows,
+                        long elapsedMillis, boolean cancelled, List<String> errors) {
+        this.linesRead = linesRead;
+        this.importedRows = importedRows;
+        this.rejectedRows = rejectedRows;
+        this.elapsedMillis = elapsedMillis;
+        this.cancelled = cancelled;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis > 0 ? importedRows * 1000 / elapsedMillis : importedRows;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Строк: %d, импортировано: %d, отклонено: %d, %.1f с (%d строк/с)%s",
+                linesRead, importedRows, rejectedRows, elapsedMillis / 1000.0,
+                getRowsPerSecond(), cancelled ? ", прервано" : "");
+    }
+}
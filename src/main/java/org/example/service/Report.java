@@ -0,0 +1,134 @@
+package org.example.service;
+
+import org.example.model.AmountSummary;
+import org.example.model.CategorySummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.TransactionType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Готовый отчет: итоги по типам, ряды по периодам и по категориям.
+// Неизменяемый, поэтому его можно отдавать в EDT и хранить в кэше.
+// Панель только отображает его, ничего не пересчитывая.
+public final class Report {
+    private final ReportSpec spec;
+    private final PeriodUnit grouping;
+    private final Map<TransactionType, AmountSummary> totals;
+    private final List<PeriodSummary> periodSeries;
+    private final List<CategorySummary> categorySeries;
+    private final long elapsedMillis;
+
+    public Report(ReportSpec spec, PeriodUnit grouping, Map<TransactionType, AmountSummary> totals,
+                  List<PeriodSummary> periodSeries, List<CategorySummary> categorySeries, long elapsedMillis) {
+        this.spec = spec;
+        this.grouping = grouping;
+        Map<TransactionType, AmountSummary> copy = new EnumMap<>(TransactionType.class);
+        copy.putAll(totals);
+        this.totals = Collections.unmodifiableMap(copy);
+        this.periodSeries = Collections.unmodifiableList(new ArrayList<>(periodSeries));
+        this.categorySeries = Collections.unmodifiableList(new ArrayList<>(categorySeries));
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public ReportSpec getSpec() {
+        return spec;
+    }
+
+    public LocalDate getFrom() {
+        return spec.getFrom();
+    }
+
+    public LocalDate getTo() {
+        return spec.getTo();
+    }
+
+    // Фактическая группировка (при автоматическом выборе - подобранная по периоду)
+    public PeriodUnit getGrouping() {
+        return grouping;
+    }
+
+    public Map<TransactionType, AmountSummary> getTotals() {
+        return totals;
+    }
+
+    public AmountSummary getSummary(TransactionType type) {
+        return totals.getOrDefault(type, AmountSummary.EMPTY);
+    }
+
+    public Money getIncome() {
+        return getSummary(TransactionType.INCOME).getTotal();
+    }
+
+    public Money getExpense() {
+        return getSummary(TransactionType.EXPENSE).getTotal();
+    }
+
+    public Money getBalance() {
+        return getIncome().minus(getExpense());
+    }
+
+    public long getTransactionCount() {
+        long count = 0;
+        for (AmountSummary summary : totals.values()) {
+            count += summary.getCount();
+        }
+        return count;
+    }
+
+    // Средняя сумма одной транзакции типа
+    public Money getAverage(TransactionType type) {
+        return getSummary(type).getAverage();
+    }
+
+    public long getDayCount() {
+        return ChronoUnit.DAYS.between(spec.getFrom(), spec.getTo()) + 1;
+    }
+
+    // Средняя сумма типа в день за весь период, включая дни без транзакций
+    public Money getAveragePerDay(TransactionType type) {
+        return getSummary(type).getTotal().divide(getDayCount());
+    }
+
+    // Непустые интервалы группировки по возрастанию даты, по строке на тип
+    public List<PeriodSummary> getPeriodSeries() {
+        return periodSeries;
+    }
+
+    // Категории с транзакциями: сначала доходы, затем расходы, внутри - по убыванию суммы
+    public List<CategorySummary> getCategorySeries() {
+        return categorySeries;
+    }
+
+    public List<CategorySummary> getCategorySeries(TransactionType type) {
+        List<CategorySummary> result = new ArrayList<>();
+        for (CategorySummary row : categorySeries) {
+            if (row.getType() == type) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return getTransactionCount() == 0;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Отчет %s: доходы %s, расходы %s, баланс %s, транзакций %d, %s, %d мс",
+                spec, getIncome(), getExpense(), getBalance(), getTransactionCount(),
+                grouping.getGroupingName(), elapsedMillis);
+    }
+}
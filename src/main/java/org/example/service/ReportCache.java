@@ -0,0 +1,85 @@
+package org.example.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Готовые отчеты по спецификации; при переполнении вытесняется давно не запрошенный (LRU).
+// Запись транзакции сбрасывает только отчеты, в период которых попадает ее дата.
+// Версия растет при каждом сбросе: отчет, который считался во время записи,
+// мог не увидеть ее, поэтому он возвращается вызывающему, но в кэш не кладется.
+public class ReportCache {
+    private final int maxEntries;
+    private final LinkedHashMap<ReportSpec, Report> reports;
+
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ReportCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.reports = new LinkedHashMap<ReportSpec, Report>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReportSpec, Report> eldest) {
+                if (size() > ReportCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Report get(ReportSpec spec) {
+        Report report = reports.get(spec);
+        if (report != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return report;
+    }
+
+    // Версию нужно прочитать до начала расчета и передать в put
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void put(Report report, long computedAtVersion) {
+        if (maxEntries <= 0 || computedAtVersion != version) {
+            return;
+        }
+        reports.put(report.getSpec(), report);
+    }
+
+    // Сбрасывает отчеты, период которых содержит хотя бы одну из дат
+    public synchronized void invalidate(Collection<LocalDate> dates) {
+        version++;
+        NavigableSet<LocalDate> sorted = new TreeSet<>(dates);
+        Iterator<ReportSpec> it = reports.keySet().iterator();
+        while (it.hasNext()) {
+            ReportSpec spec = it.next();
+            LocalDate first = sorted.ceiling(spec.getFrom());
+            if (first != null && !first.isAfter(spec.getTo())) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        invalidations += reports.size();
+        reports.clear();
+    }
+
+    public synchronized ReportCacheStats getStats() {
+        return new ReportCacheStats(reports.size(), maxEntries, hits, misses, evictions, invalidations);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.service;
+
+// Снимок состояния кэша отчетов
+public class ReportCacheStats {
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+
+    public ReportCacheStats(int size, int maxSize, long hits, long misses, long evictions, long invalidations) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Кэш отчетов: %d из %d, попаданий %d, промахов %d (%.1f%%), вытеснено %d, сброшено %d",
+                size, maxSize, hits, misses, getHitRatio() * 100, evictions, invalidations);
+    }
+}
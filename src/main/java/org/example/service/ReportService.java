@@ -1,4 +1,247 @@
 package org.example.service;
 
+import org.example.analytics.TransactionColumnStore;
+import org.example.dao.CategoryDAO;
+import org.example.dao.DatabaseConnection;
+import org.example.dao.TransactionDAO;
+import org.example.dao.TransactionRowVisitor;
+import org.example.dao.TransactionWriteListener;
+import org.example.model.AmountSummary;
+import org.example.model.Category;
+import org.example.model.CategorySummary;
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Построитель отчетов. Все метрики отчета (итоги, ряды по периодам и категориям,
+// количество, средние) собираются за один проход по транзакциям периода:
+// по массивам колоночного хранилища, а без него - одним потоковым запросом к БД.
+// Строки приходят по возрастанию даты, поэтому интервал группировки
+// переключается сравнением с границей, без поиска на каждую строку.
+// Готовые отчеты хранятся в ReportCache и сбрасываются по датам записанных транзакций.
 public class ReportService {
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final TransactionDAO transactionDAO;
+    private final CategoryDAO categoryDAO;
+    private final int targetBuckets;
+    private final ReportCache cache;
+    private boolean listening;
+
+    private final TransactionWriteListener writeListener = new TransactionWriteListener() {
+        @Override
+        public void transactionsAdded(List<Transaction> transactions) {
+            List<LocalDate> dates = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                dates.add(transaction.getDate().toLocalDate());
+            }
+            cache.invalidate(dates);
+        }
+
+        @Override
+        public void transactionDeleted(Transaction transaction) {
+            cache.invalidate(Collections.singletonList(transaction.getDate().toLocalDate()));
+        }
+
+        // Транзакции удаленной категории переходят в "без категории" во всех периодах
+        @Override
+        public void categoryDeleted(long categoryId) {
+            cache.clear();
+        }
+    };
+
+    public ReportService() {
+        this(new TransactionDAO(), new CategoryDAO());
+    }
+
+    public ReportService(TransactionDAO transactionDAO, CategoryDAO categoryDAO) {
+        this.transactionDAO = transactionDAO;
+        this.categoryDAO = categoryDAO;
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        this.targetBuckets = db.getIntProperty("report.chart.target.buckets", 31);
+        this.cache = new ReportCache(db.getIntProperty("report.cache.max.entries", 32));
+    }
+
+    public synchronized void close() {
+        TransactionDAO.removeWriteListener(writeListener);
+        listening = false;
+        cache.clear();
+    }
+
+    public ReportCacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    // null, если транзакции не удалось прочитать
+    public Report generate(ReportSpec spec) {
+        Report cached = cache.get(spec);
+        if (cached != null) {
+            return cached;
+        }
+
+        long started = System.currentTimeMillis();
+        TransactionColumnStore store = analytics();
+        listenForWrites();
+        long version = cache.getVersion();
+
+        PeriodUnit grouping = spec.getGrouping() != null
+                ? spec.getGrouping()
+                : PeriodUnit.forRange(spec.getFrom(), spec.getTo(), targetBuckets);
+        LocalDateTime start = spec.getFrom().atStartOfDay();
+        LocalDateTime end = spec.getTo().atTime(23, 59, 59);
+
+        ReportBuilder builder = new ReportBuilder(spec, grouping);
+        if (store != null) {
+            store.forEachRow(start, end, builder);
+        } else if (!transactionDAO.scanRows(start, end, builder)) {
+            System.err.println("Ошибка при формировании отчета " + spec);
+            return null;
+        }
+        Report report = builder.build(categoriesById(), System.currentTimeMillis() - started);
+        cache.put(report, version);
+        return report;
+    }
+
+    // Подписка оформляется при первом расчете, уже после колоночного хранилища:
+    // обработчики вызываются в порядке регистрации, и к моменту сброса кэша
+    // хранилище успевает применить запись. До первого расчета кэш пуст.
+    private synchronized void listenForWrites() {
+        if (!listening) {
+            TransactionDAO.addWriteListener(writeListener);
+            listening = true;
+        }
+    }
+
+    private TransactionColumnStore analytics() {
+        if (!TransactionColumnStore.isEnabled()) {
+            return null;
+        }
+        TransactionColumnStore store = TransactionColumnStore.getInstance();
+        return store.ensureLoaded() ? store : null;
+    }
+
+    private Map<Long, Category> categoriesById() {
+        Map<Long, Category> categories = new HashMap<>();
+        for (Category category : categoryDAO.getAllCategories()) {
+            categories.put(category.getId(), category);
+        }
+        return categories;
+    }
+
+    // Накопитель одной группы: количество, сумма, минимум и максимум в копейках
+    private static class Accumulator {
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        void add(long amount) {
+            count++;
+            sum = Math.addExact(sum, amount);
+            min = Math.min(min, amount);
+            max = Math.max(max, amount);
+        }
+
+        AmountSummary toSummary() {
+            return new AmountSummary(count, Money.ofMinor(sum), Money.ofMinor(min), Money.ofMinor(max));
+        }
+    }
+
+    private static class ReportBuilder implements TransactionRowVisitor {
+        private final ReportSpec spec;
+        private final PeriodUnit grouping;
+        private final List<LocalDate> bucketStarts = new ArrayList<>();
+        private final long[] bucketEnds;
+        private final Accumulator[] incomeByBucket;
+        private final Accumulator[] expenseByBucket;
+        private final Map<Long, Accumulator> incomeByCategory = new HashMap<>();
+        private final Map<Long, Accumulator> expenseByCategory = new HashMap<>();
+        private final Accumulator income = new Accumulator();
+        private final Accumulator expense = new Accumulator();
+        private int bucket;
+
+        ReportBuilder(ReportSpec spec, PeriodUnit grouping) {
+            this.spec = spec;
+            this.grouping = grouping;
+            for (LocalDate day = grouping.truncate(spec.getFrom()); !day.isAfter(spec.getTo());
+                 day = grouping.next(day)) {
+                bucketStarts.add(day);
+            }
+            bucketEnds = new long[bucketStarts.size()];
+            for (int i = 0; i < bucketEnds.length; i++) {
+                bucketEnds[i] = grouping.next(bucketStarts.get(i)).toEpochDay() * SECONDS_PER_DAY;
+            }
+            incomeByBucket = new Accumulator[bucketEnds.length];
+            expenseByBucket = new Accumulator[bucketEnds.length];
+        }
+
+        @Override
+        public void visit(long id, boolean isIncome, long amountMinor, long categoryId, long epochSecond) {
+            if (!spec.accepts(isIncome ? TransactionType.INCOME : TransactionType.EXPENSE, categoryId)) {
+                return;
+            }
+            while (bucket < bucketEnds.length - 1 && epochSecond >= bucketEnds[bucket]) {
+                bucket++;
+            }
+
+            Accumulator[] byBucket = isIncome ? incomeByBucket : expenseByBucket;
+            if (byBucket[bucket] == null) {
+                byBucket[bucket] = new Accumulator();
+            }
+            byBucket[bucket].add(amountMinor);
+            (isIncome ? incomeByCategory : expenseByCategory)
+                    .computeIfAbsent(categoryId, k -> new Accumulator()).add(amountMinor);
+            (isIncome ? income : expense).add(amountMinor);
+        }
+
+        Report build(Map<Long, Category> categories, long elapsedMillis) {
+            Map<TransactionType, AmountSummary> totals = new EnumMap<>(TransactionType.class);
+            if (income.count > 0) {
+                totals.put(TransactionType.INCOME, income.toSummary());
+            }
+            if (expense.count > 0) {
+                totals.put(TransactionType.EXPENSE, expense.toSummary());
+            }
+
+            List<PeriodSummary> periodSeries = new ArrayList<>();
+            for (int i = 0; i < bucketEnds.length; i++) {
+                if (incomeByBucket[i] != null) {
+                    periodSeries.add(new PeriodSummary(bucketStarts.get(i), grouping,
+                            TransactionType.INCOME, incomeByBucket[i].toSummary()));
+                }
+                if (expenseByBucket[i] != null) {
+                    periodSeries.add(new PeriodSummary(bucketStarts.get(i), grouping,
+                            TransactionType.EXPENSE, expenseByBucket[i].toSummary()));
+                }
+            }
+
+            List<CategorySummary> categorySeries = new ArrayList<>();
+            categorySeries.addAll(toCategorySeries(TransactionType.INCOME, incomeByCategory, categories));
+            categorySeries.addAll(toCategorySeries(TransactionType.EXPENSE, expenseByCategory, categories));
+
+            return new Report(spec, grouping, totals, periodSeries, categorySeries, elapsedMillis);
+        }
+
+        private List<CategorySummary> toCategorySeries(TransactionType type, Map<Long, Accumulator> byCategory,
+                                                       Map<Long, Category> categories) {
+            List<CategorySummary> result = new ArrayList<>(byCategory.size());
+            for (Map.Entry<Long, Accumulator> entry : byCategory.entrySet()) {
+                result.add(new CategorySummary(categories.get(entry.getKey()), type, entry.getValue().toSummary()));
+            }
+            result.sort(Comparator.comparing((CategorySummary row) -> row.getSummary().getTotal()).reversed());
+            return result;
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package org.example.service;
+
+import org.example.model.PeriodUnit;
+import org.example.model.TransactionType;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+// Параметры отчета: период [from, to] по целым дням, группировка по времени
+// и фильтры. grouping == null - единица подбирается под длину периода.
+// Пустой фильтр означает "все"; id категории 0 - транзакции без категории.
+// Неизменяемый, с equals/hashCode: годится как ключ кэша отчетов.
+public final class ReportSpec {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final PeriodUnit grouping;
+    private final Set<TransactionType> types;
+    private final Set<Long> categoryIds;
+
+    public ReportSpec(LocalDate from, LocalDate to, PeriodUnit grouping) {
+        this(from, to, grouping, Collections.emptySet(), Collections.emptySet());
+    }
+
+    private ReportSpec(LocalDate from, LocalDate to, PeriodUnit grouping,
+                       Set<TransactionType> types, Set<Long> categoryIds) {
+        this.from = Objects.requireNonNull(from, "from");
+        this.to = Objects.requireNonNull(to, "to");
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Дата начала отчета позже даты окончания");
+        }
+        this.grouping = grouping;
+        this.types = types;
+        this.categoryIds = categoryIds;
+    }
+
+    // Только транзакции указанных типов
+    public ReportSpec withTypes(TransactionType... types) {
+        Set<TransactionType> selected = EnumSet.noneOf(TransactionType.class);
+        selected.addAll(Arrays.asList(types));
+        return new ReportSpec(from, to, grouping, Collections.unmodifiableSet(selected), categoryIds);
+    }
+
+    // Только транзакции указанных категорий (0 - без категории)
+    public ReportSpec withCategories(Long... categoryIds) {
+        Set<Long> selected = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(categoryIds)));
+        return new ReportSpec(from, to, grouping, types, selected);
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public PeriodUnit getGrouping() {
+        return grouping;
+    }
+
+    public Set<TransactionType> getTypes() {
+        return types;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public boolean hasFilters() {
+        return !types.isEmpty() || !categoryIds.isEmpty();
+    }
+
+    public boolean accepts(TransactionType type, long categoryId) {
+        return (types.isEmpty() || types.contains(type))
+                && (categoryIds.isEmpty() || categoryIds.contains(categoryId));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ReportSpec)) return false;
+        ReportSpec that = (ReportSpec) o;
+        return from.equals(that.from) && to.equals(that.to) && grouping == that.grouping
+                && types.equals(that.types) && categoryIds.equals(that.categoryIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, grouping, types, categoryIds);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder()
+                .append(from).append(" - ").append(to)
+                .append(", ").append(grouping != null ? grouping.getGroupingName() : "авто");
+        if (!types.isEmpty()) {
+            result.append(", типы ").append(types);
+        }
+        if (!categoryIds.isEmpty()) {
+            result.append(", категории ").append(categoryIds);
+        }
+        return result.toString();
+    }
+}
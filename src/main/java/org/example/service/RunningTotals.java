@@ -0,0 +1,45 @@
+package org.example.service;
+
+import org.example.dao.RollupDAO;
+import org.example.model.AmountSummary;
+import org.example.model.TransactionType;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Копия таблицы running_totals в памяти: итоги и баланс за все время без запросов.
+// После записи копия помечается устаревшей и при следующем обращении перечитывается
+// (не больше двух строк по первичному ключу). Флаг снимается до чтения, поэтому
+// запись, зафиксированная во время чтения, снова пометит копию и не потеряется.
+public class RunningTotals {
+    private final RollupDAO rollupDAO;
+
+    private volatile boolean stale = true;
+    private volatile Map<TransactionType, AmountSummary> totals = Collections.emptyMap();
+
+    public RunningTotals(RollupDAO rollupDAO) {
+        this.rollupDAO = rollupDAO;
+    }
+
+    public void markStale() {
+        stale = true;
+    }
+
+    // null, если таблицу не удалось прочитать
+    public Map<TransactionType, AmountSummary> get() {
+        if (stale) {
+            synchronized (this) {
+                if (stale) {
+                    stale = false;
+                    Map<TransactionType, AmountSummary> loaded = rollupDAO.getRunningTotals();
+                    if (loaded == null) {
+                        stale = true;
+                        return null;
+                    }
+                    totals = Collections.unmodifiableMap(loaded);
+                }
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.ui;
+
+import org.example.service.BackgroundExecutor;
+
+import javax.swing.*;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+// Загрузка данных панели вне EDT. Действует правило "последний запрос побеждает":
+// новый вызов load отменяет предыдущий - еще не начатый запрос не выполнится,
+// у запущенного флаг cancelled станет true, а его результат будет отброшен.
+// Поток запроса не прерывается (прерывание посреди чтения закрывает файл H2).
+// Методы load/cancel и все колбэки работают в EDT.
+public class AsyncLoader<T> {
+
+    public interface Query<T> {
+        // cancelled - запрос устарел, можно прекратить работу и вернуть что угодно
+        T run(BooleanSupplier cancelled) throws Exception;
+    }
+
+    private final Consumer<Boolean> loadingIndicator;
+    private volatile long generation;
+    private Future<?> running;
+
+    public AsyncLoader(Consumer<Boolean> loadingIndicator) {
+        this.loadingIndicator = loadingIndicator;
+    }
+
+    public void load(Query<T> query, Consumer<T> onResult, Consumer<Exception> onError) {
+        long requestId = ++generation;
+        cancelRunning();
+
+        BooleanSupplier cancelled = () -> generation != requestId;
+        running = BackgroundExecutor.getInstance().submit(() -> {
+            try {
+                T result = query.run(cancelled);
+                SwingUtilities.invokeLater(() -> complete(requestId, () -> onResult.accept(result)));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> complete(requestId, () -> onError.accept(e)));
+            }
+            return null;
+        });
+        loadingIndicator.accept(true);
+    }
+
+    public void cancel() {
+        if (running != null) {
+            generation++;
+            cancelRunning();
+            loadingIndicator.accept(false);
+        }
+    }
+
+    public boolean isLoading() {
+        return running != null;
+    }
+
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel(false);
+            running = null;
+        }
+    }
+
+    private void complete(long requestId, Runnable callback) {
+        if (requestId != generation) {
+            return;
+        }
+        running = null;
+        loadingIndicator.accept(false);
+        callback.run();
+    }
+}
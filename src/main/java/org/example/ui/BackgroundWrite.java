@@ -0,0 +1,36 @@
+package org.example.ui;
+
+import org.example.service.BackgroundExecutor;
+
+import javax.swing.*;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+// Запись в БД из интерфейса вне EDT. В отличие от AsyncLoader (чтения, "последний
+// запрос побеждает") записи не вытесняют друг друга: каждая выполняется до конца,
+// и ее результат или ошибка всегда доставляются в EDT. Вызывается из EDT;
+// busy получает true при запуске и false перед колбэком результата.
+public final class BackgroundWrite {
+
+    private BackgroundWrite() {
+    }
+
+    public static <T> void run(Callable<T> write, Consumer<T> onResult, Consumer<Exception> onError,
+                               Consumer<Boolean> busy) {
+        busy.accept(true);
+        BackgroundExecutor.getInstance().execute(() -> {
+            try {
+                T result = write.call();
+                SwingUtilities.invokeLater(() -> {
+                    busy.accept(false);
+                    onResult.accept(result);
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    busy.accept(false);
+                    onError.accept(e);
+                });
+            }
+        });
+    }
+}
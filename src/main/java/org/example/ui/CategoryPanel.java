@@ -2,6 +2,7 @@ package org.example.ui;
 
 import org.example.model.Category;
 import org.example.model.CategoryType;
+import org.example.service.DataChangeEvent;
 import org.example.service.FinanceService;
 
 import javax.swing.*;
@@ -10,6 +11,7 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class CategoryPanel extends JPanel {
     private FinanceService financeService;
@@ -18,11 +20,23 @@ public class CategoryPanel extends JPanel {
     private JButton addButton;
     private JButton deleteButton;
     private JButton refreshButton;
+    private JLabel loadingLabel;
 
-    public CategoryPanel() {
-        this.financeService = new FinanceService();
+    private final AsyncLoader<List<Category>> categoriesLoader = new AsyncLoader<>(this::setLoading);
+
+    public CategoryPanel(FinanceService financeService) {
+        this.financeService = financeService;
         initComponents();
         loadCategories();
+
+        financeService.addDataChangeListener(event -> SwingUtilities.invokeLater(() -> onDataChanged(event)));
+    }
+
+    // Категории могут добавиться и из импорта CSV; транзакции таблицу не меняют
+    private void onDataChanged(DataChangeEvent event) {
+        if (event.isCategoryChange()) {
+            loadCategories();
+        }
     }
 
     private void initComponents() {
@@ -43,6 +57,10 @@ public class CategoryPanel extends JPanel {
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
 
+        loadingLabel = new JLabel("⏳ Загрузка...");
+        loadingLabel.setVisible(false);
+        buttonPanel.add(loadingLabel);
+
         add(buttonPanel, BorderLayout.NORTH);
 
         // Таблица категорий
@@ -87,9 +105,18 @@ public class CategoryPanel extends JPanel {
     }
 
     private void loadCategories() {
-        tableModel.setRowCount(0);
-        List<Category> categories = financeService.getAllCategories();
+        categoriesLoader.load(cancelled -> financeService.getAllCategories(),
+                this::showCategories,
+                e -> {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this,
+                            "Ошибка при загрузке категорий: " + e.getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                });
+    }
 
+    private void showCategories(List<Category> categories) {
+        tableModel.setRowCount(0);
         for (Category category : categories) {
             Object[] row = {
                     category.getId(),
@@ -101,6 +128,38 @@ public class CategoryPanel extends JPanel {
         }
     }
 
+    private void setLoading(boolean loading) {
+        loadingLabel.setVisible(loading);
+        setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    private void setWriting(boolean writing) {
+        addButton.setEnabled(!writing);
+        deleteButton.setEnabled(!writing);
+        setCursor(writing ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
+    // Добавление и удаление идут вне EDT; пока запись не завершилась, кнопки недоступны.
+    // Результат показывается в EDT, таблица обновится по событию сервиса
+    private void runWrite(Callable<Boolean> write, String successMessage, String failureMessage) {
+        BackgroundWrite.run(write,
+                ok -> {
+                    if (ok) {
+                        JOptionPane.showMessageDialog(this, successMessage,
+                                "Успех", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(this, failureMessage,
+                                "Ошибка", JOptionPane.ERROR_MESSAGE);
+                    }
+                },
+                e -> {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this, failureMessage + ": " + e.getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                },
+                this::setWriting);
+    }
+
     private void addCategory(ActionEvent e) {
         // Диалог для добавления категории
         JPanel panel = new JPanel(new GridLayout(4, 2, 5, 5));
@@ -153,14 +212,8 @@ public class CategoryPanel extends JPanel {
             category.setType(typeCombo.getSelectedIndex() == 0 ? CategoryType.INCOME : CategoryType.EXPENSE);
             category.setColor((String) colorCombo.getSelectedItem());
 
-            if (financeService.addCategory(category)) {
-                JOptionPane.showMessageDialog(this, "Категория добавлена",
-                        "Успех", JOptionPane.INFORMATION_MESSAGE);
-                loadCategories();
-            } else {
-                JOptionPane.showMessageDialog(this, "Ошибка при добавлении категории",
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
-            }
+            runWrite(() -> financeService.addCategory(category),
+                    "Категория добавлена", "Ошибка при добавлении категории");
         }
     }
 
@@ -184,16 +237,8 @@ public class CategoryPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            if (financeService.deleteCategory(categoryId)) {
-                JOptionPane.showMessageDialog(this,
-                        "Категория удалена",
-                        "Успех", JOptionPane.INFORMATION_MESSAGE);
-                loadCategories();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Ошибка при удалении категории",
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
-            }
+            runWrite(() -> financeService.deleteCategory(categoryId),
+                    "Категория удалена", "Ошибка при удалении категории");
         }
     }
 
@@ -1,5 +1,9 @@
 package org.example.ui;
 
+import org.example.model.AmountSummary;
+import org.example.model.Money;
+import org.example.model.TransactionType;
+import org.example.service.DataChangeEvent;
 import org.example.service.FinanceService;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
@@ -8,7 +12,6 @@ import org.jfree.data.general.DefaultPieDataset;
 
 import javax.swing.*;
 import java.awt.*;
-import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Locale;
 import java.util.Map;
@@ -20,11 +23,52 @@ public class DashboardPanel extends JPanel {
     private JLabel totalExpenseLabel;
     private JLabel balanceLabel;
     private JPanel chartPanelContainer;
+    private JLabel loadingLabel;
 
-    public DashboardPanel() {
-        this.financeService = new FinanceService();
+    // Итоги и диаграмма читаются в фоне, каждый новый запрос отменяет предыдущий
+    private final AsyncLoader<Map<TransactionType, AmountSummary>> statsLoader =
+            new AsyncLoader<>(loading -> updateLoadingState());
+    private final AsyncLoader<Map<String, Money>> chartLoader =
+            new AsyncLoader<>(loading -> updateLoadingState());
+
+    // Пачки событий (например, импорт по кускам) склеиваются в одно обновление
+    private final Timer refreshTimer = new Timer(200, e -> applyPendingChanges());
+    private boolean statsDirty;
+    private boolean chartDirty;
+
+    public DashboardPanel(FinanceService financeService) {
+        this.financeService = financeService;
         initComponents();
         updateData();
+
+        refreshTimer.setRepeats(false);
+        financeService.addDataChangeListener(event -> SwingUtilities.invokeLater(() -> onDataChanged(event)));
+    }
+
+    // Итоги зависят от любой транзакции, диаграмма - только от расходов и категорий
+    private void onDataChanged(DataChangeEvent event) {
+        if (event.isTransactionChange()) {
+            statsDirty = true;
+            if (event.affects(TransactionType.EXPENSE)) {
+                chartDirty = true;
+            }
+        } else if (event.getKind() == DataChangeEvent.Kind.CATEGORY_DELETED) {
+            chartDirty = true;
+        }
+        if (statsDirty || chartDirty) {
+            refreshTimer.restart();
+        }
+    }
+
+    private void applyPendingChanges() {
+        if (statsDirty) {
+            updateStatistics();
+        }
+        if (chartDirty) {
+            updateChart();
+        }
+        statsDirty = false;
+        chartDirty = false;
     }
 
     private void initComponents() {
@@ -64,6 +108,10 @@ public class DashboardPanel extends JPanel {
         refreshButton.addActionListener(e -> updateData());
         buttonPanel.add(refreshButton);
 
+        loadingLabel = new JLabel("⏳ Загрузка...");
+        loadingLabel.setVisible(false);
+        buttonPanel.add(loadingLabel);
+
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
@@ -89,35 +137,49 @@ public class DashboardPanel extends JPanel {
     }
 
     private void updateData() {
-        try {
-            // Обновление статистики
-            BigDecimal income = financeService.getTotalIncome();
-            BigDecimal expense = financeService.getTotalExpense();
-            BigDecimal balance = financeService.getBalance();
+        updateStatistics();
+        updateChart();
+    }
 
-            NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
-            formatter.setMaximumFractionDigits(2);
-            formatter.setMinimumFractionDigits(2);
+    private void updateStatistics() {
+        statsLoader.load(cancelled -> financeService.getRunningTotals(),
+                this::showStatistics,
+                e -> {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(this,
+                            "Ошибка при обновлении данных: " + e.getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                });
+    }
 
-            totalIncomeLabel.setText(formatter.format(income) + " ₽");
-            totalExpenseLabel.setText(formatter.format(expense) + " ₽");
-            balanceLabel.setText(formatter.format(balance) + " ₽");
+    private void showStatistics(Map<TransactionType, AmountSummary> totals) {
+        Money income = totals.getOrDefault(TransactionType.INCOME, AmountSummary.EMPTY).getTotal();
+        Money expense = totals.getOrDefault(TransactionType.EXPENSE, AmountSummary.EMPTY).getTotal();
+        Money balance = income.minus(expense);
 
-            // Обновление диаграммы
-            updateChart();
+        NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
+        formatter.setMaximumFractionDigits(2);
+        formatter.setMinimumFractionDigits(2);
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Ошибка при обновлении данных: " + e.getMessage(),
-                    "Ошибка", JOptionPane.ERROR_MESSAGE);
-        }
+        totalIncomeLabel.setText(formatter.format(income.toBigDecimal()) + " ₽");
+        totalExpenseLabel.setText(formatter.format(expense.toBigDecimal()) + " ₽");
+        balanceLabel.setText(formatter.format(balance.toBigDecimal()) + " ₽");
+    }
+
+    private void updateLoadingState() {
+        boolean loading = statsLoader.isLoading() || chartLoader.isLoading();
+        loadingLabel.setVisible(loading);
+        setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
     }
 
     private void updateChart() {
-        try {
-            Map<String, BigDecimal> expensesByCategory = financeService.getExpensesByCategory();
+        chartLoader.load(cancelled -> financeService.getExpensesByCategory(),
+                this::showChart,
+                this::showChartError);
+    }
 
+    private void showChart(Map<String, Money> expensesByCategory) {
+        try {
             if (expensesByCategory.isEmpty()) {
                 chartPanelContainer.removeAll();
                 chartPanelContainer.add(new JLabel("Нет данных о расходах", SwingConstants.CENTER), BorderLayout.CENTER);
@@ -130,8 +192,8 @@ public class DashboardPanel extends JPanel {
             double total = 0;
 
             // Собираем данные и считаем общую сумму
-            for (Map.Entry<String, BigDecimal> entry : expensesByCategory.entrySet()) {
-                double value = entry.getValue().doubleValue();
+            for (Map.Entry<String, Money> entry : expensesByCategory.entrySet()) {
+                double value = entry.getValue().toDouble();
                 dataset.setValue(entry.getKey(), value);
                 total += value;
             }
@@ -167,12 +229,16 @@ public class DashboardPanel extends JPanel {
             chartPanelContainer.repaint();
 
         } catch (Exception e) {
-            e.printStackTrace();
-            chartPanelContainer.removeAll();
-            chartPanelContainer.add(new JLabel("Ошибка при создании диаграммы: " + e.getMessage(),
-                    SwingConstants.CENTER), BorderLayout.CENTER);
-            chartPanelContainer.revalidate();
-            chartPanelContainer.repaint();
+            showChartError(e);
         }
     }
+
+    private void showChartError(Exception e) {
+        e.printStackTrace();
+        chartPanelContainer.removeAll();
+        chartPanelContainer.add(new JLabel("Ошибка при создании диаграммы: " + e.getMessage(),
+                SwingConstants.CENTER), BorderLayout.CENTER);
+        chartPanelContainer.revalidate();
+        chartPanelContainer.repaint();
+    }
 }
\ No newline at end of file
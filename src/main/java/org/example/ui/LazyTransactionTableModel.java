@@ -0,0 +1,452 @@
+package org.example.ui;
+
+import org.example.dao.DatabaseConnection;
+import org.example.dao.PageCursor;
+import org.example.model.Transaction;
+import org.example.service.BackgroundExecutor;
+import org.example.service.DataChangeEvent;
+import org.example.service.FinanceService;
+import org.example.util.DateUtil;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Виртуальная модель таблицы транзакций (transaction_date DESC, id DESC).
+// Модель знает только общее число строк; сами строки читаются страницами в фоне,
+// когда JTable запрашивает видимые ячейки. В памяти держится не больше
+// maxCachedPages страниц (LRU), поэтому объем не зависит от размера таблицы.
+// Следующая страница читается по ключу от последней строки предыдущей,
+// переход вглубь без соседней страницы - через OFFSET.
+// Пока страница не прочитана, ее ячейки пустые. Все методы вызываются в EDT.
+// Добавление и удаление применяются к кэшу на месте (applyChange): строка
+// вставляется в свою позицию, следующие страницы сдвигаются на одну строку,
+// таблица получает событие по одной строке вместо полной перезагрузки.
+public class LazyTransactionTableModel extends AbstractTableModel {
+    // Порядок строк таблицы: (дата, id) по убыванию, как в запросах страниц
+    private static final Comparator<Transaction> ROW_ORDER =
+            Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId).reversed();
+
+    // Большие пачки (импорт) выгоднее перечитать, чем вставлять по строке
+    private static final int MAX_INCREMENTAL_ROWS = 100;
+    private static final int POSITION_UNKNOWN = -1;
+    private static final int ALREADY_PRESENT = -2;
+
+    public enum Column {
+        ID("ID", Long.class),
+        DATE("Дата", String.class),
+        TYPE("Тип", String.class),
+        AMOUNT("Сумма", BigDecimal.class),
+        CATEGORY("Категория", String.class),
+        DESCRIPTION("Описание", String.class);
+
+        private final String title;
+        private final Class<?> valueClass;
+
+        Column(String title, Class<?> valueClass) {
+            this.title = title;
+            this.valueClass = valueClass;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private final FinanceService financeService;
+    private final Column[] columns;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final Consumer<Exception> errorHandler;
+    private final AsyncLoader<FirstPage> reloadLoader;
+
+    private final Map<Integer, List<Transaction>> pages;
+    private final Set<Integer> pendingPages = new HashSet<>();
+    // Страницы, потерявшие последнюю строку при удалении: ее нужно дочитать
+    private final Set<Integer> incompletePages = new HashSet<>();
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private int rowCount;
+    // Меняется при каждой перезагрузке: страницы старого поколения отбрасываются
+    private long generation;
+
+    public LazyTransactionTableModel(FinanceService financeService, Consumer<Boolean> loadingIndicator,
+                                     Consumer<Exception> errorHandler, Column... columns) {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        this.financeService = financeService;
+        this.columns = columns;
+        this.pageSize = Math.max(1, db.getIntProperty("ui.table.page.size", 200));
+        this.maxCachedPages = Math.max(2, db.getIntProperty("ui.table.cached.pages", 50));
+        this.errorHandler = errorHandler;
+        this.reloadLoader = new AsyncLoader<>(loadingIndicator);
+        this.pages = new LinkedHashMap<Integer, List<Transaction>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    // Период [start, end): конец не входит, null - без ограничения. Полуоткрытый
+    // интервал дает одинаковые границы и для подсчета строк, и для чтения страниц.
+    // Применяется при следующем reload()
+    public void setRange(LocalDateTime start, LocalDateTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    // Перечитывает число строк и первую страницу; прежний кэш сбрасывается после ответа
+    public void reload() {
+        LocalDateTime from = start;
+        LocalDateTime to = end;
+        reloadLoader.load(cancelled -> {
+                    int count = financeService.getTransactionCount(from, to);
+                    if (cancelled.getAsBoolean()) {
+                        return null;
+                    }
+                    return new FirstPage(count, financeService.getTransactionPage(from, to, null, pageSize).getItems());
+                },
+                result -> {
+                    generation++;
+                    pages.clear();
+                    pendingPages.clear();
+                    incompletePages.clear();
+                    rowCount = result.count;
+                    if (!result.items.isEmpty()) {
+                        pages.put(0, result.items);
+                    }
+                    fireTableDataChanged();
+                },
+                errorHandler);
+    }
+
+    public void clear() {
+        reloadLoader.cancel();
+        generation++;
+        pages.clear();
+        pendingPages.clear();
+        incompletePages.clear();
+        rowCount = 0;
+        fireTableDataChanged();
+    }
+
+    public boolean isLoading() {
+        return reloadLoader.isLoading();
+    }
+
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    // Транзакция строки или null, если ее страница еще читается
+    public Transaction getTransactionAt(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int pageIndex = row / pageSize;
+        List<Transaction> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return null;
+        }
+        int offset = row - pageIndex * pageSize;
+        if (offset < page.size()) {
+            return page.get(offset);
+        }
+        if (incompletePages.contains(pageIndex)) {
+            requestPage(pageIndex);
+        }
+        return null;
+    }
+
+    // Применяет добавление или удаление транзакций к текущему списку.
+    // false - позицию строки не определить по кэшу (или пачка слишком велика),
+    // список нужно перечитать через reload()
+    public boolean applyChange(DataChangeEvent event) {
+        if (!event.isTransactionChange()) {
+            return false;
+        }
+        List<Transaction> changed = new ArrayList<>();
+        for (Transaction transaction : event.getTransactions()) {
+            if (inRange(transaction)) {
+                changed.add(transaction);
+            }
+        }
+        if (changed.isEmpty()) {
+            return true;
+        }
+        if (reloadLoader.isLoading() || changed.size() > MAX_INCREMENTAL_ROWS) {
+            return false;
+        }
+        // Страницы, читаемые сейчас, могут оказаться как до, так и после изменения
+        generation++;
+        pendingPages.clear();
+
+        changed.sort(ROW_ORDER);
+        for (Transaction transaction : changed) {
+            boolean applied = event.getKind() == DataChangeEvent.Kind.TRANSACTIONS_ADDED
+                    ? insertRow(transaction)
+                    : deleteRow(transaction);
+            if (!applied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].title;
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns[column].valueClass;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Transaction transaction = getTransactionAt(row);
+        if (transaction == null) {
+            return null;
+        }
+        switch (columns[column]) {
+            case ID:
+                return transaction.getId();
+            case DATE:
+                return DateUtil.formatDateTime(transaction.getDate());
+            case TYPE:
+                return transaction.getType().getDisplayName();
+            case AMOUNT:
+                return transaction.getAmount().toBigDecimal();
+            case CATEGORY:
+                return transaction.getCategory() != null ? transaction.getCategory().getName() : "-";
+            case DESCRIPTION:
+                return transaction.getDescription() != null ? transaction.getDescription() : "";
+            default:
+                return null;
+        }
+    }
+
+    private boolean inRange(Transaction transaction) {
+        LocalDateTime date = transaction.getDate();
+        return date != null && (start == null || !date.isBefore(start)) && (end == null || date.isBefore(end));
+    }
+
+    private boolean insertRow(Transaction transaction) {
+        int position = findInsertPosition(transaction);
+        if (position == ALREADY_PRESENT) {
+            return true;
+        }
+        if (position == POSITION_UNKNOWN) {
+            return false;
+        }
+
+        // Каждая следующая страница получает первой строкой последнюю строку
+        // предыдущей; страница без прочитанной предшественницы выбрасывается
+        int positionPage = position / pageSize;
+        Map<Integer, List<Transaction>> shifted = new TreeMap<>();
+        Transaction carry = null;
+        int carryPage = -1;
+        for (Map.Entry<Integer, List<Transaction>> entry : new TreeMap<>(pages).entrySet()) {
+            int index = entry.getKey();
+            List<Transaction> rows = entry.getValue();
+            if (index < positionPage) {
+                shifted.put(index, rows);
+                continue;
+            }
+            List<Transaction> updated = new ArrayList<>(rows.size() + 1);
+            if (index == positionPage) {
+                updated.addAll(rows);
+                updated.add(position - index * pageSize, transaction);
+            } else if (carry != null && carryPage == index - 1) {
+                updated.add(carry);
+                updated.addAll(rows);
+            } else {
+                carry = null;
+                incompletePages.remove(index);
+                continue;
+            }
+            carry = updated.size() > pageSize ? updated.remove(updated.size() - 1) : null;
+            carryPage = index;
+            shifted.put(index, updated);
+        }
+        replacePages(shifted);
+
+        rowCount++;
+        fireTableRowsInserted(position, position);
+        return true;
+    }
+
+    private boolean deleteRow(Transaction transaction) {
+        int position = findRow(transaction);
+        if (position < 0) {
+            return false;
+        }
+
+        // Первая строка каждой следующей страницы переходит в конец предыдущей
+        int positionPage = position / pageSize;
+        Map<Integer, List<Transaction>> shifted = new TreeMap<>();
+        for (Map.Entry<Integer, List<Transaction>> entry : new TreeMap<>(pages).entrySet()) {
+            int index = entry.getKey();
+            List<Transaction> rows = entry.getValue();
+            if (index < positionPage) {
+                shifted.put(index, rows);
+                continue;
+            }
+            List<Transaction> updated = new ArrayList<>(rows);
+            if (index == positionPage) {
+                updated.remove(position - index * pageSize);
+            } else if (!updated.isEmpty()) {
+                Transaction first = updated.remove(0);
+                List<Transaction> previous = shifted.get(index - 1);
+                if (previous != null && index - 1 >= positionPage) {
+                    previous.add(first);
+                    incompletePages.remove(index - 1);
+                }
+            }
+            shifted.put(index, updated);
+            // Последнюю строку страницы дочитаем, если следующая страница не в кэше
+            if (!pages.containsKey(index + 1)) {
+                incompletePages.add(index);
+            }
+        }
+        replacePages(shifted);
+
+        rowCount--;
+        fireTableRowsDeleted(position, position);
+        return true;
+    }
+
+    // Позиция новой строки, если ее можно определить по прочитанным страницам
+    private int findInsertPosition(Transaction transaction) {
+        if (rowCount == 0) {
+            return 0;
+        }
+        int previousFullPage = -1;
+        for (Map.Entry<Integer, List<Transaction>> entry : new TreeMap<>(pages).entrySet()) {
+            int index = entry.getKey();
+            List<Transaction> rows = entry.getValue();
+            int found = Collections.binarySearch(rows, transaction, ROW_ORDER);
+            if (found >= 0) {
+                return ALREADY_PRESENT;
+            }
+            int insertion = -found - 1;
+            if (insertion > 0 && insertion < rows.size()) {
+                return index * pageSize + insertion;
+            }
+            if (insertion == 0) {
+                // Строка перед первой строкой страницы: позиция известна, только если
+                // это начало списка или предыдущая страница целиком раньше нее
+                return index == 0 || previousFullPage == index - 1 ? index * pageSize : POSITION_UNKNOWN;
+            }
+            if (index * pageSize + rows.size() >= rowCount) {
+                return rowCount;
+            }
+            previousFullPage = rows.size() == pageSize ? index : -1;
+        }
+        return POSITION_UNKNOWN;
+    }
+
+    // Номер строки транзакции в прочитанных страницах или -1
+    private int findRow(Transaction transaction) {
+        for (Map.Entry<Integer, List<Transaction>> entry : pages.entrySet()) {
+            List<Transaction> rows = entry.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getId().equals(transaction.getId())) {
+                    return entry.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Заменяет содержимое кэша, сохраняя порядок LRU
+    private void replacePages(Map<Integer, List<Transaction>> shifted) {
+        List<Integer> accessOrder = new ArrayList<>(pages.keySet());
+        pages.clear();
+        for (Integer index : accessOrder) {
+            List<Transaction> rows = shifted.get(index);
+            if (rows != null) {
+                pages.put(index, rows);
+            }
+        }
+    }
+
+    private void requestPage(int pageIndex) {
+        if (!pendingPages.add(pageIndex)) {
+            return;
+        }
+        long requestGeneration = generation;
+        LocalDateTime from = start;
+        LocalDateTime to = end;
+        // Полная предыдущая страница дает курсор для чтения по индексу без OFFSET
+        List<Transaction> previous = pageIndex > 0 ? pages.get(pageIndex - 1) : null;
+        PageCursor after = previous != null && previous.size() == pageSize
+                ? new PageCursor(previous.get(pageSize - 1).getDate(), previous.get(pageSize - 1).getId())
+                : null;
+        long offset = (long) pageIndex * pageSize;
+
+        BackgroundExecutor.getInstance().execute(() -> {
+            try {
+                List<Transaction> rows = after != null
+                        ? financeService.getTransactionPage(from, to, after, pageSize).getItems()
+                        : financeService.getTransactionPageAt(from, to, offset, pageSize).getItems();
+                SwingUtilities.invokeLater(() -> pageLoaded(requestGeneration, pageIndex, rows));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (requestGeneration == generation) {
+                        pendingPages.remove(pageIndex);
+                        errorHandler.accept(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void pageLoaded(long requestGeneration, int pageIndex, List<Transaction> rows) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        pendingPages.remove(pageIndex);
+        incompletePages.remove(pageIndex);
+        pages.put(pageIndex, rows);
+        int first = pageIndex * pageSize;
+        int last = Math.min(rowCount, first + pageSize) - 1;
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    // Результат перезагрузки: общее число строк и первая страница
+    private static class FirstPage {
+        private final int count;
+        private final List<Transaction> items;
+
+        FirstPage(int count, List<Transaction> items) {
+            this.count = count;
+            this.items = items != null ? items : Collections.emptyList();
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package org.example.ui;
 
+import org.example.dao.DatabaseConnection;
+import org.example.service.FinanceService;
+
 import javax.swing.*;
 import java.awt.*;
 
 public class MainFrame extends JFrame {
+    private final FinanceService financeService;
     private JTabbedPane tabbedPane;
 
-    public MainFrame() {
+    public MainFrame(FinanceService financeService) {
+        this.financeService = financeService;
         setTitle("Financy - Учет личных финансов");
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setSize(1200, 800);
@@ -20,10 +25,10 @@ public class MainFrame extends JFrame {
         tabbedPane = new JTabbedPane();
 
         // Создаем панели для разных функций
-        tabbedPane.addTab("📊 Дашборд", new DashboardPanel());
-        tabbedPane.addTab("💳 Транзакции", new TransactionPanel());
-        tabbedPane.addTab("🗂️ Категории", new CategoryPanel());
-        tabbedPane.addTab("📋 Отчеты", new ReportPanel());  // Добавляем новую вкладку
+        tabbedPane.addTab("📊 Дашборд", new DashboardPanel(financeService));
+        tabbedPane.addTab("💳 Транзакции", new TransactionPanel(financeService));
+        tabbedPane.addTab("🗂️ Категории", new CategoryPanel(financeService));
+        tabbedPane.addTab("📋 Отчеты", new ReportPanel(financeService));  // Добавляем новую вкладку
 
         add(tabbedPane, BorderLayout.CENTER);
 
@@ -60,6 +65,8 @@ public class MainFrame extends JFrame {
         );
 
         if (confirm == JOptionPane.YES_OPTION) {
+            financeService.close();
+            DatabaseConnection.getInstance().closeConnection();
             System.exit(0);
         }
     }
@@ -1,21 +1,27 @@
 package org.example.ui;
 
+import org.example.model.Money;
+import org.example.model.PeriodSummary;
+import org.example.model.PeriodUnit;
 import org.example.model.Transaction;
 import org.example.model.TransactionType;
+import org.example.service.CsvExportService;
+import org.example.service.DataChangeEvent;
+import org.example.service.ExportProgress;
+import org.example.service.ExportResult;
 import org.example.service.FinanceService;
-import org.example.util.DateUtil;
+import org.example.service.Report;
+import org.example.service.ReportSpec;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.data.category.DefaultCategoryDataset;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Locale;
@@ -29,6 +35,10 @@ public class ReportPanel extends JPanel {
     private JSpinner toDateSpinner;
     private JButton generateButton;
     private JButton exportButton;
+    private JLabel loadingLabel;
+
+    // Повторное нажатие "Сформировать отчет" отменяет еще не готовый отчет
+    private final AsyncLoader<Report> reportLoader = new AsyncLoader<>(this::setLoading);
 
     private JLabel totalIncomeLabel;
     private JLabel totalExpenseLabel;
@@ -36,17 +46,44 @@ public class ReportPanel extends JPanel {
     private JLabel periodLabel;
 
     private JTable reportTable;
-    private DefaultTableModel tableModel;
+    private LazyTransactionTableModel tableModel;
+    private JLabel countLabel;
 
     private JPanel chartPanelContainer;
 
     private LocalDate fromDate;
     private LocalDate toDate;
 
-    public ReportPanel() {
-        this.financeService = new FinanceService();
+    // Отчет пересчитывается один раз на пачку событий; таблица перечитывается,
+    // только если изменения не удалось применить к ней на месте
+    private final Timer refreshTimer = new Timer(200, e -> applyPendingChanges());
+    private boolean tableStale;
+
+    public ReportPanel(FinanceService financeService) {
+        this.financeService = financeService;
         initComponents();
         setDefaultDates();
+
+        refreshTimer.setRepeats(false);
+        financeService.addDataChangeListener(event -> SwingUtilities.invokeLater(() -> onDataChanged(event)));
+    }
+
+    // Пересчитываем только уже сформированный отчет, если изменение попало в его период
+    private void onDataChanged(DataChangeEvent event) {
+        if (fromDate != null && event.affectsPeriod(fromDate, toDate)) {
+            if (!event.isTransactionChange() || !tableModel.applyChange(event)) {
+                tableStale = true;
+            }
+            refreshTimer.restart();
+        }
+    }
+
+    private void applyPendingChanges() {
+        if (tableStale) {
+            tableModel.reload();
+            tableStale = false;
+        }
+        refreshSummary();
     }
 
     private void initComponents() {
@@ -94,8 +131,12 @@ public class ReportPanel extends JPanel {
         exportButton.addActionListener(e -> exportToCSV());
         exportButton.setEnabled(false);
 
+        loadingLabel = new JLabel("⏳ Формирование...");
+        loadingLabel.setVisible(false);
+
         buttonPanel.add(generateButton);
         buttonPanel.add(exportButton);
+        buttonPanel.add(loadingLabel);
 
         gbc.gridx = 0;
         gbc.gridy = 2;
@@ -162,19 +203,13 @@ public class ReportPanel extends JPanel {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setBorder(BorderFactory.createTitledBorder("Транзакции за период"));
 
-        String[] columns = {"Дата", "Тип", "Сумма", "Категория", "Описание"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 2) return BigDecimal.class;
-                return String.class;
-            }
-        };
+        // Строки периода читаются страницами по мере прокрутки, а не списком целиком
+        tableModel = new LazyTransactionTableModel(financeService, this::setLoading, this::showReportError,
+                LazyTransactionTableModel.Column.DATE,
+                LazyTransactionTableModel.Column.TYPE,
+                LazyTransactionTableModel.Column.AMOUNT,
+                LazyTransactionTableModel.Column.CATEGORY,
+                LazyTransactionTableModel.Column.DESCRIPTION);
 
         reportTable = new JTable(tableModel);
         reportTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -194,12 +229,13 @@ public class ReportPanel extends JPanel {
                         isSelected, hasFocus, row, column);
 
                 if (!isSelected) {
-                    String type = (String) tableModel.getValueAt(row, 1);
+                    Transaction transaction = tableModel.getTransactionAt(row);
+                    TransactionType type = transaction != null ? transaction.getType() : null;
 
-                    if ("Доход".equals(type)) {
+                    if (type == TransactionType.INCOME) {
                         c.setForeground(new Color(0, 100, 0));
                         c.setBackground(new Color(220, 255, 220));
-                    } else if ("Расход".equals(type)) {
+                    } else if (type == TransactionType.EXPENSE) {
                         c.setForeground(new Color(150, 0, 0));
                         c.setBackground(new Color(255, 220, 220));
                     } else {
@@ -239,8 +275,10 @@ public class ReportPanel extends JPanel {
 
         // Панель с количеством транзакций
         JPanel countPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JLabel countLabel = new JLabel("Всего транзакций: 0");
+        countLabel = new JLabel("Всего транзакций: 0");
         countPanel.add(countLabel);
+        tableModel.addTableModelListener(e ->
+                countLabel.setText("Всего транзакций: " + tableModel.getRowCount()));
         tablePanel.add(countPanel, BorderLayout.SOUTH);
 
         return tablePanel;
@@ -299,62 +337,80 @@ public class ReportPanel extends JPanel {
     }
 
     private void generateReport() {
-        try {
-            // Получаем даты из спиннеров
-            java.util.Date fromUtilDate = (java.util.Date) fromDateSpinner.getValue();
-            java.util.Date toUtilDate = (java.util.Date) toDateSpinner.getValue();
-
-            fromDate = new java.sql.Date(fromUtilDate.getTime()).toLocalDate();
-            toDate = new java.sql.Date(toUtilDate.getTime()).toLocalDate();
-
-            // Проверяем, что дата "С" раньше даты "По"
-            if (fromDate.isAfter(toDate)) {
-                JOptionPane.showMessageDialog(this,
-                        "Дата 'С' должна быть раньше даты 'По'",
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        // Получаем даты из спиннеров
+        java.util.Date fromUtilDate = (java.util.Date) fromDateSpinner.getValue();
+        java.util.Date toUtilDate = (java.util.Date) toDateSpinner.getValue();
 
-            // Получаем транзакции за период
-            LocalDateTime startDateTime = fromDate.atStartOfDay();
-            LocalDateTime endDateTime = toDate.atTime(23, 59, 59);
+        LocalDate from = new java.sql.Date(fromUtilDate.getTime()).toLocalDate();
+        LocalDate to = new java.sql.Date(toUtilDate.getTime()).toLocalDate();
 
-            List<Transaction> transactions = financeService.getTransactionsByDateRange(
-                    startDateTime, endDateTime);
+        // Проверяем, что дата "С" раньше даты "По"
+        if (from.isAfter(to)) {
+            JOptionPane.showMessageDialog(this,
+                    "Дата 'С' должна быть раньше даты 'По'",
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-            // Обновляем статистику
-            updateStatistics(transactions);
+        fromDate = from;
+        toDate = to;
+        refreshReport();
+    }
 
-            // Обновляем таблицу
-            updateTable(transactions);
+    // Пересчет отчета за уже выбранный период [fromDate, toDate] в фоне
+    private void refreshReport() {
+        LocalDate from = fromDate;
+        LocalDate to = toDate;
 
-            // Обновляем диаграмму
-            updateChart(transactions);
+        // Таблица перечитывает только число строк и первую страницу
+        tableModel.setRange(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        tableModel.reload();
+        tableStale = false;
 
-            // Активируем кнопку экспорта
-            exportButton.setEnabled(!transactions.isEmpty());
+        refreshSummary();
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Ошибка при формировании отчета: " + e.getMessage(),
-                    "Ошибка", JOptionPane.ERROR_MESSAGE);
-        }
+    // Итоги и диаграмма за [fromDate, toDate]: отчет считается сервисом за один проход,
+    // группировка подбирается под длину периода
+    private void refreshSummary() {
+        ReportSpec spec = new ReportSpec(fromDate, toDate, null);
+        reportLoader.load(cancelled -> {
+                    Report report = financeService.generateReport(spec);
+                    if (report == null) {
+                        throw new IllegalStateException("не удалось прочитать транзакции");
+                    }
+                    return report;
+                },
+                this::showReport,
+                this::showReportError);
     }
 
-    private void updateStatistics(List<Transaction> transactions) {
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
+    private void showReport(Report report) {
+        updateStatistics(report);
+        updateChart(report);
+        exportButton.setEnabled(!report.isEmpty());
+    }
 
-        for (Transaction transaction : transactions) {
-            if (transaction.getType() == TransactionType.INCOME) {
-                totalIncome = totalIncome.add(transaction.getAmount());
-            } else {
-                totalExpense = totalExpense.add(transaction.getAmount());
-            }
+    private void showReportError(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+                "Ошибка при формировании отчета: " + e.getMessage(),
+                "Ошибка", JOptionPane.ERROR_MESSAGE);
+    }
+
+    private void setLoading(boolean loading) {
+        boolean busy = reportLoader.isLoading() || tableModel.isLoading();
+        loadingLabel.setVisible(busy);
+        if (loading) {
+            exportButton.setEnabled(false);
         }
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
 
-        BigDecimal balance = totalIncome.subtract(totalExpense);
+    private void updateStatistics(Report report) {
+        Money totalIncome = report.getIncome();
+        Money totalExpense = report.getExpense();
+        Money balance = report.getBalance();
 
         // Форматируем числа
         NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
@@ -363,33 +419,15 @@ public class ReportPanel extends JPanel {
 
         // Обновляем метки
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        periodLabel.setText(fromDate.format(dateFormatter) + " - " + toDate.format(dateFormatter));
-        totalIncomeLabel.setText(formatter.format(totalIncome) + " ₽");
-        totalExpenseLabel.setText(formatter.format(totalExpense) + " ₽");
-        balanceLabel.setText(formatter.format(balance) + " ₽");
+        periodLabel.setText(report.getFrom().format(dateFormatter) + " - " + report.getTo().format(dateFormatter));
+        totalIncomeLabel.setText(formatter.format(totalIncome.toBigDecimal()) + " ₽");
+        totalExpenseLabel.setText(formatter.format(totalExpense.toBigDecimal()) + " ₽");
+        balanceLabel.setText(formatter.format(balance.toBigDecimal()) + " ₽");
     }
 
-    private void updateTable(List<Transaction> transactions) {
-        tableModel.setRowCount(0);
-
-        NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
-        formatter.setMaximumFractionDigits(2);
-        formatter.setMinimumFractionDigits(2);
-
-        for (Transaction transaction : transactions) {
-            Object[] row = {
-                    DateUtil.formatDateTime(transaction.getDate()),
-                    transaction.getType().getDisplayName(),
-                    transaction.getAmount(),
-                    transaction.getCategory() != null ? transaction.getCategory().getName() : "-",
-                    transaction.getDescription() != null ? transaction.getDescription() : ""
-            };
-            tableModel.addRow(row);
-        }
-    }
-
-    private void updateChart(List<Transaction> transactions) {
-        if (transactions.isEmpty()) {
+    private void updateChart(Report report) {
+        List<PeriodSummary> periodTotals = report.getPeriodSeries();
+        if (periodTotals.isEmpty()) {
             chartPanelContainer.removeAll();
             chartPanelContainer.add(new JLabel("Нет данных для построения диаграммы",
                     SwingConstants.CENTER), BorderLayout.CENTER);
@@ -399,52 +437,23 @@ public class ReportPanel extends JPanel {
         }
 
         try {
-            // Группируем по дням
+            // Ряд уже сгруппирован и упорядочен по дате, единица одна на весь отчет
             DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-
-            // Создаем мапы для группировки
-            java.util.Map<LocalDate, BigDecimal> incomeByDate = new java.util.HashMap<>();
-            java.util.Map<LocalDate, BigDecimal> expenseByDate = new java.util.HashMap<>();
-
-            for (Transaction transaction : transactions) {
-                LocalDate date = transaction.getDate().toLocalDate();
-                BigDecimal amount = transaction.getAmount();
-
-                if (transaction.getType() == TransactionType.INCOME) {
-                    BigDecimal current = incomeByDate.getOrDefault(date, BigDecimal.ZERO);
-                    incomeByDate.put(date, current.add(amount));
-                } else {
-                    BigDecimal current = expenseByDate.getOrDefault(date, BigDecimal.ZERO);
-                    expenseByDate.put(date, current.add(amount));
-                }
-            }
-
-            // Добавляем данные в dataset
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM");
-
-            // Сортируем даты
-            java.util.List<LocalDate> dates = new java.util.ArrayList<>(
-                    new java.util.HashSet<>(incomeByDate.keySet()));
-            dates.addAll(expenseByDate.keySet());
-            dates = dates.stream().distinct().sorted().collect(java.util.stream.Collectors.toList());
-
-            for (LocalDate date : dates) {
-                String dateStr = date.format(dateFormatter);
-                BigDecimal income = incomeByDate.getOrDefault(date, BigDecimal.ZERO);
-                BigDecimal expense = expenseByDate.getOrDefault(date, BigDecimal.ZERO);
-
-                if (income.compareTo(BigDecimal.ZERO) > 0) {
-                    dataset.addValue(income.doubleValue(), "Доходы", dateStr);
-                }
-                if (expense.compareTo(BigDecimal.ZERO) > 0) {
-                    dataset.addValue(expense.doubleValue(), "Расходы", dateStr);
+            PeriodUnit unit = report.getGrouping();
+
+            for (PeriodSummary row : periodTotals) {
+                Money total = row.getSummary().getTotal();
+                if (total.isPositive()) {
+                    dataset.addValue(total.toDouble(),
+                            row.getType() == TransactionType.INCOME ? "Доходы" : "Расходы",
+                            unit.formatLabel(row.getPeriodStart()));
                 }
             }
 
             // Создаем диаграмму
             JFreeChart chart = ChartFactory.createBarChart(
-                    "Динамика доходов и расходов по дням",
-                    "Дата",
+                    "Динамика доходов и расходов " + unit.getGroupingName(),
+                    "Период",
                     "Сумма (₽)",
                     dataset
             );
@@ -476,43 +485,70 @@ public class ReportPanel extends JPanel {
                 LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")) + ".csv"));
 
         int userSelection = fileChooser.showSaveDialog(this);
+        if (userSelection != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
 
-        if (userSelection == JFileChooser.APPROVE_OPTION) {
-            java.io.File file = fileChooser.getSelectedFile();
-
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(file, "UTF-8")) {
-                // Заголовок
-                writer.println("Отчет Financy");
-                writer.println("Период: " + periodLabel.getText());
-                writer.println("Доходы: " + totalIncomeLabel.getText());
-                writer.println("Расходы: " + totalExpenseLabel.getText());
-                writer.println("Баланс: " + balanceLabel.getText());
-                writer.println();
-
-                // Заголовки таблицы
-                writer.println("Дата;Тип;Сумма;Категория;Описание");
-
-                // Данные
-                for (int i = 0; i < tableModel.getRowCount(); i++) {
-                    writer.println(
-                            tableModel.getValueAt(i, 0) + ";" +
-                                    tableModel.getValueAt(i, 1) + ";" +
-                                    tableModel.getValueAt(i, 2) + ";" +
-                                    tableModel.getValueAt(i, 3) + ";" +
-                                    tableModel.getValueAt(i, 4)
-                    );
+        java.io.File file = fileChooser.getSelectedFile();
+        LocalDate exportFrom = fromDate;
+        LocalDate exportTo = toDate;
+
+        ProgressMonitor monitor = new ProgressMonitor(this,
+                "Экспорт в " + file.getName(), "Чтение транзакций...", 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        exportButton.setEnabled(false);
+
+        // Строки идут из курсора БД прямо в файл в фоновом потоке, таблица не используется
+        SwingWorker<ExportResult, ExportProgress> worker = new SwingWorker<ExportResult, ExportProgress>() {
+            @Override
+            protected ExportResult doInBackground() throws Exception {
+                // После cancel() done() вызывается сразу, а экспорт еще дописывает кусок:
+                // кнопка включается только по фактическому завершению
+                try {
+                    return new CsvExportService().exportTransactions(exportFrom, exportTo,
+                            file.toPath(), this::publish, this::isCancelled);
+                } finally {
+                    SwingUtilities.invokeLater(() -> exportButton.setEnabled(true));
                 }
+            }
 
-                JOptionPane.showMessageDialog(this,
-                        "Отчет успешно экспортирован в файл:\n" + file.getAbsolutePath(),
-                        "Экспорт завершен", JOptionPane.INFORMATION_MESSAGE);
+            @Override
+            protected void process(List<ExportProgress> chunks) {
+                ExportProgress progress = chunks.get(chunks.size() - 1);
+                monitor.setProgress(progress.getPercent());
+                monitor.setNote(progress.toString());
+                if (monitor.isCanceled()) {
+                    // Экспорт остановится на ближайшей проверке и удалит незаконченный файл
+                    cancel(false);
+                }
+            }
 
-            } catch (Exception e) {
-                e.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                        "Ошибка при экспорте: " + e.getMessage(),
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+            @Override
+            protected void done() {
+                monitor.close();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    ExportResult result = get();
+                    if (result.isFailed()) {
+                        JOptionPane.showMessageDialog(ReportPanel.this,
+                                "Ошибка при экспорте: " + result.getError(),
+                                "Ошибка", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(ReportPanel.this,
+                            "Отчет успешно экспортирован в файл:\n" + file.getAbsolutePath() +
+                                    "\n" + result,
+                            "Экспорт завершен", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(ReportPanel.this,
+                            "Ошибка при экспорте: " + e.getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                }
             }
-        }
+        };
+        worker.execute();
     }
-}
\ No newline at end of file
+}
@@ -2,15 +2,19 @@ package org.example.ui;
 
 import org.example.model.Transaction;
 import org.example.model.TransactionType;
+import org.example.service.CsvImportService;
+import org.example.service.DataChangeEvent;
 import org.example.service.FinanceService;
+import org.example.service.ImportProgress;
+import org.example.service.ImportResult;
 import org.example.ui.dialogs.AddTransactionDialog;
 import org.example.util.DateUtil;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
+import java.io.File;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
@@ -18,16 +22,37 @@ import java.util.Locale;
 public class TransactionPanel extends JPanel {
     private FinanceService financeService;
     private JTable transactionTable;
-    private DefaultTableModel tableModel;
+    private LazyTransactionTableModel tableModel;
     private JButton addButton;
     private JButton deleteButton;
     private JButton refreshButton;
+    private JButton importButton;
     private JLabel summaryLabel;
+    private JLabel loadingLabel;
 
-    public TransactionPanel() {
-        this.financeService = new FinanceService();
+    // Импорт фиксирует данные кусками: перезагрузки склеиваются в одну
+    private final Timer reloadTimer = new Timer(200, e -> loadTransactions());
+
+    public TransactionPanel(FinanceService financeService) {
+        this.financeService = financeService;
         initComponents();
         loadTransactions();
+
+        reloadTimer.setRepeats(false);
+        financeService.addDataChangeListener(event -> SwingUtilities.invokeLater(() -> onDataChanged(event)));
+    }
+
+    // Добавленные и удаленные строки меняются в таблице на месте; перечитываем
+    // список, только если позицию не определить или пришла большая пачка.
+    // Новая категория на список не влияет, удаленная меняет подписи строк
+    private void onDataChanged(DataChangeEvent event) {
+        if (event.isTransactionChange()) {
+            if (!tableModel.applyChange(event)) {
+                reloadTimer.restart();
+            }
+        } else if (event.getKind() == DataChangeEvent.Kind.CATEGORY_DELETED) {
+            reloadTimer.restart();
+        }
     }
 
     private void initComponents() {
@@ -42,14 +67,21 @@ public class TransactionPanel extends JPanel {
         addButton = new JButton("➕ Добавить");
         deleteButton = new JButton("🗑️ Удалить");
         refreshButton = new JButton("🔄 Обновить");
+        importButton = new JButton("📥 Импорт CSV");
 
         addButton.addActionListener(e -> addTransaction());
         deleteButton.addActionListener(e -> deleteTransaction());
         refreshButton.addActionListener(e -> loadTransactions());
+        importButton.addActionListener(e -> importFromCSV());
 
         buttonPanel.add(addButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
+
+        loadingLabel = new JLabel("⏳ Загрузка...");
+        loadingLabel.setVisible(false);
+        buttonPanel.add(loadingLabel);
 
         topPanel.add(buttonPanel, BorderLayout.WEST);
 
@@ -60,21 +92,16 @@ public class TransactionPanel extends JPanel {
 
         add(topPanel, BorderLayout.NORTH);
 
-        // Таблица транзакций
-        String[] columns = {"ID", "Дата", "Тип", "Сумма", "Категория", "Описание"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 0) return Long.class;
-                if (columnIndex == 3) return BigDecimal.class;
-                return String.class;
-            }
-        };
+        // Таблица транзакций: строки читаются страницами по мере прокрутки
+        tableModel = new LazyTransactionTableModel(financeService, this::setLoading, this::showLoadError,
+                LazyTransactionTableModel.Column.ID,
+                LazyTransactionTableModel.Column.DATE,
+                LazyTransactionTableModel.Column.TYPE,
+                LazyTransactionTableModel.Column.AMOUNT,
+                LazyTransactionTableModel.Column.CATEGORY,
+                LazyTransactionTableModel.Column.DESCRIPTION);
+        tableModel.addTableModelListener(e ->
+                summaryLabel.setText("Всего транзакций: " + tableModel.getRowCount()));
 
         transactionTable = new JTable(tableModel);
         transactionTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -98,40 +125,32 @@ public class TransactionPanel extends JPanel {
         add(scrollPane, BorderLayout.CENTER);
 
         // Информационная панель внизу
-        JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        infoPanel.add(new JLabel("💡 Для редактирования транзакции удалите и создайте заново"));
+        JPanel infoPanel = new JPanel(new BorderLayout());
+        infoPanel.add(new JLabel("💡 Для редактирования транзакции удалите и создайте заново"), BorderLayout.WEST);
+
         add(infoPanel, BorderLayout.SOUTH);
     }
 
     private void loadTransactions() {
-        try {
-            tableModel.setRowCount(0);
-            List<Transaction> transactions = financeService.getAllTransactions();
-
-            NumberFormat formatter = NumberFormat.getNumberInstance(Locale.US);
-            formatter.setMaximumFractionDigits(2);
-            formatter.setMinimumFractionDigits(2);
+        tableModel.reload();
+    }
 
-            for (Transaction transaction : transactions) {
-                Object[] row = {
-                        transaction.getId(),
-                        DateUtil.formatDateTime(transaction.getDate()),
-                        transaction.getType().getDisplayName(),
-                        transaction.getAmount(),
-                        transaction.getCategory() != null ? transaction.getCategory().getName() : "-",
-                        transaction.getDescription() != null ? transaction.getDescription() : ""
-                };
-                tableModel.addRow(row);
-            }
+    private void showLoadError(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+                "Ошибка при загрузке транзакций: " + e.getMessage(),
+                "Ошибка", JOptionPane.ERROR_MESSAGE);
+    }
 
-            summaryLabel.setText("Всего транзакций: " + transactions.size());
+    private void setLoading(boolean loading) {
+        loadingLabel.setVisible(loading);
+        setCursor(loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this,
-                    "Ошибка при загрузке транзакций: " + e.getMessage(),
-                    "Ошибка", JOptionPane.ERROR_MESSAGE);
-        }
+    private void setDeleting(boolean deleting) {
+        addButton.setEnabled(!deleting);
+        deleteButton.setEnabled(!deleting);
+        setCursor(deleting ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
     }
 
     private void addTransaction() {
@@ -139,19 +158,8 @@ public class TransactionPanel extends JPanel {
                 (Frame) SwingUtilities.getWindowAncestor(this),
                 financeService
         );
+        // Таблица и остальные вкладки обновятся по событию сервиса
         dialog.setVisible(true);
-
-        if (dialog.isSaved()) {
-            loadTransactions();
-            // Обновляем главное окно для обновления дашборда
-            JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(this);
-            if (frame instanceof MainFrame) {
-                MainFrame mainFrame = (MainFrame) frame;
-                // Переключаемся на дашборд чтобы увидеть обновления
-                mainFrame.getContentPane().revalidate();
-                mainFrame.getContentPane().repaint();
-            }
-        }
     }
 
     private void deleteTransaction() {
@@ -163,9 +171,14 @@ public class TransactionPanel extends JPanel {
             return;
         }
 
-        Long transactionId = (Long) tableModel.getValueAt(selectedRow, 0);
-        String transactionDate = (String) tableModel.getValueAt(selectedRow, 1);
-        String transactionAmount = tableModel.getValueAt(selectedRow, 3).toString();
+        Transaction transaction = tableModel.getTransactionAt(selectedRow);
+        if (transaction == null) {
+            // Страница строки еще читается
+            return;
+        }
+        Long transactionId = transaction.getId();
+        String transactionDate = DateUtil.formatDateTime(transaction.getDate());
+        String transactionAmount = transaction.getAmount().toBigDecimal().toString();
 
         int confirm = JOptionPane.showConfirmDialog(this,
                 "<html>Вы уверены, что хотите удалить транзакцию?<br>" +
@@ -176,17 +189,117 @@ public class TransactionPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            if (financeService.deleteTransaction(transactionId)) {
-                JOptionPane.showMessageDialog(this,
-                        "Транзакция удалена",
-                        "Успех", JOptionPane.INFORMATION_MESSAGE);
-                loadTransactions();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Ошибка при удалении",
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+            // Удаление идет вне EDT, пока оно не завершилось, кнопки изменения недоступны.
+            // Строка уйдет из таблицы по событию сервиса
+            BackgroundWrite.run(() -> financeService.deleteTransaction(transactionId),
+                    deleted -> {
+                        if (deleted) {
+                            JOptionPane.showMessageDialog(this,
+                                    "Транзакция удалена",
+                                    "Успех", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Ошибка при удалении",
+                                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+                        }
+                    },
+                    e -> {
+                        e.printStackTrace();
+                        JOptionPane.showMessageDialog(this,
+                                "Ошибка при удалении: " + e.getMessage(),
+                                "Ошибка", JOptionPane.ERROR_MESSAGE);
+                    },
+                    this::setDeleting);
+        }
+    }
+
+    private void importFromCSV() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Импорт транзакций из CSV");
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+
+        int createCategories = JOptionPane.showConfirmDialog(this,
+                "Создавать категории, которых еще нет?\n" +
+                        "Если нет, строки с неизвестными категориями будут пропущены.",
+                "Импорт CSV", JOptionPane.YES_NO_CANCEL_OPTION);
+        if (createCategories == JOptionPane.CANCEL_OPTION || createCategories == JOptionPane.CLOSED_OPTION) {
+            return;
+        }
+
+        ProgressMonitor monitor = new ProgressMonitor(this,
+                "Импорт " + file.getName(), "Чтение файла...", 0, 100);
+        monitor.setMillisToDecideToPopup(0);
+        monitor.setMillisToPopup(0);
+        importButton.setEnabled(false);
+
+        // Импорт идет в фоне, прогресс передается в EDT через publish.
+        // После cancel() done() вызывается сразу, а текущий кусок еще пишется, поэтому
+        // кнопка включается только по фактическому завершению doInBackground
+        SwingWorker<ImportResult, ImportProgress> worker = new SwingWorker<ImportResult, ImportProgress>() {
+            @Override
+            protected ImportResult doInBackground() throws Exception {
+                try {
+                    return new CsvImportService().importFile(file.toPath(),
+                            createCategories == JOptionPane.YES_OPTION, this::publish, this::isCancelled);
+                } finally {
+                    SwingUtilities.invokeLater(() -> importButton.setEnabled(true));
+                }
+            }
+
+            @Override
+            protected void process(List<ImportProgress> chunks) {
+                ImportProgress progress = chunks.get(chunks.size() - 1);
+                monitor.setProgress(progress.getPercent());
+                monitor.setNote(progress.toString());
+                if (monitor.isCanceled()) {
+                    // Без прерывания потока: импорт сам остановится после текущего куска
+                    cancel(false);
+                }
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                if (isCancelled()) {
+                    JOptionPane.showMessageDialog(TransactionPanel.this,
+                            "Импорт прерван. Уже обработанная часть файла сохранена.",
+                            "Импорт CSV", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                try {
+                    showImportResult(get());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(TransactionPanel.this,
+                            "Ошибка при импорте: " + e.getMessage(),
+                            "Ошибка", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    private void showImportResult(ImportResult result) {
+        StringBuilder message = new StringBuilder(result.toString());
+        if (!result.getErrors().isEmpty()) {
+            message.append("\n\nОшибки");
+            if (result.getRejectedRows() > result.getErrors().size()) {
+                message.append(" (первые ").append(result.getErrors().size()).append(")");
+            }
+            message.append(":");
+            for (String error : result.getErrors()) {
+                message.append("\n").append(error);
             }
         }
+
+        JTextArea textArea = new JTextArea(message.toString(), 15, 60);
+        textArea.setEditable(false);
+        JOptionPane.showMessageDialog(this, new JScrollPane(textArea),
+                "Импорт завершен",
+                result.getRejectedRows() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
     }
 
     // Кастомный рендерер для цветового кодирования транзакций
@@ -198,12 +311,13 @@ public class TransactionPanel extends JPanel {
                     isSelected, hasFocus, row, column);
 
             if (!isSelected) {
-                String type = (String) tableModel.getValueAt(row, 2);
+                Transaction transaction = tableModel.getTransactionAt(row);
+                TransactionType type = transaction != null ? transaction.getType() : null;
 
-                if (type.equals(TransactionType.INCOME.getDisplayName())) {
+                if (type == TransactionType.INCOME) {
                     c.setForeground(new Color(0, 100, 0)); // Темно-зеленый для доходов
                     c.setBackground(new Color(220, 255, 220)); // Светло-зеленый фон
-                } else if (type.equals(TransactionType.EXPENSE.getDisplayName())) {
+                } else if (type == TransactionType.EXPENSE) {
                     c.setForeground(new Color(150, 0, 0)); // Темно-красный для расходов
                     c.setBackground(new Color(255, 220, 220)); // Светло-красный фон
                 } else {
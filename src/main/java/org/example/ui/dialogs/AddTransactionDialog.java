@@ -3,12 +3,13 @@ package org.example.ui.dialogs;
 import org.example.model.Transaction;
 import org.example.model.TransactionType;
 import org.example.model.Category;
+import org.example.model.Money;
 import org.example.service.FinanceService;
+import org.example.ui.BackgroundWrite;
 import org.example.util.DateUtil;
 
 import javax.swing.*;
 import java.awt.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,6 +22,7 @@ public class AddTransactionDialog extends JDialog {
     private JComboBox<Category> categoryComboBox;
     private JTextField dateField;
     private JTextArea descriptionArea;
+    private JButton saveButton;
 
     public AddTransactionDialog(Frame parent, FinanceService financeService) {
         super(parent, "Добавить транзакцию", true);
@@ -102,7 +104,7 @@ public class AddTransactionDialog extends JDialog {
         // Панель кнопок
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
-        JButton saveButton = new JButton("Сохранить");
+        saveButton = new JButton("Сохранить");
         JButton cancelButton = new JButton("Отмена");
 
         saveButton.addActionListener(e -> saveTransaction());
@@ -152,13 +154,13 @@ public class AddTransactionDialog extends JDialog {
                 return;
             }
 
-            BigDecimal amount;
+            Money amount;
             try {
-                amount = new BigDecimal(amountField.getText().trim().replace(",", "."));
-                if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                amount = Money.parse(amountField.getText());
+                if (!amount.isPositive()) {
                     throw new NumberFormatException("Сумма должна быть положительной");
                 }
-            } catch (NumberFormatException e) {
+            } catch (NumberFormatException | ArithmeticException e) {
                 JOptionPane.showMessageDialog(this,
                         "Некорректная сумма. Используйте числа, например: 1500.50",
                         "Ошибка", JOptionPane.ERROR_MESSAGE);
@@ -196,15 +198,25 @@ public class AddTransactionDialog extends JDialog {
             transaction.setDate(date);
             transaction.setDescription(description.isEmpty() ? null : description);
 
-            // Сохранение
-            if (financeService.addTransaction(transaction)) {
-                saved = true;
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Ошибка при сохранении транзакции",
-                        "Ошибка", JOptionPane.ERROR_MESSAGE);
-            }
+            // Сохранение идет вне EDT; пока запись не завершилась, кнопка недоступна
+            BackgroundWrite.run(() -> financeService.addTransaction(transaction),
+                    ok -> {
+                        if (ok) {
+                            saved = true;
+                            dispose();
+                        } else {
+                            JOptionPane.showMessageDialog(this,
+                                    "Ошибка при сохранении транзакции",
+                                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+                        }
+                    },
+                    e -> {
+                        e.printStackTrace();
+                        JOptionPane.showMessageDialog(this,
+                                "Ошибка: " + e.getMessage(),
+                                "Ошибка", JOptionPane.ERROR_MESSAGE);
+                    },
+                    this::setSaving);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -214,6 +226,11 @@ public class AddTransactionDialog extends JDialog {
         }
     }
 
+    private void setSaving(boolean saving) {
+        saveButton.setEnabled(!saving);
+        setCursor(saving ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+    }
+
     public boolean isSaved() {
         return saved;
     }
@@ -0,0 +1,57 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбор и экранирование строк CSV (разделитель ';', поля в двойных кавычках,
+// кавычка внутри поля удваивается)
+public class CsvUtil {
+    public static final char SEPARATOR = ';';
+
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(SEPARATOR) < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        // Переводы строк заменяем пробелом: импорт читает файл построчно
+        String singleLine = value.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ');
+        return "\"" + singleLine.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,14 @@
+-- Индексы под запросы TransactionDAO
+
+-- Выборка по диапазону дат и постраничный просмотр:
+-- WHERE transaction_date BETWEEN ? AND ? / ORDER BY transaction_date DESC, id DESC
+CREATE INDEX IF NOT EXISTS idx_transactions_date_id
+    ON transactions (transaction_date DESC, id DESC);
+
+-- Транзакции категории, отсортированные по дате
+CREATE INDEX IF NOT EXISTS idx_transactions_category_date
+    ON transactions (category_id, transaction_date DESC);
+
+-- Суммы по типу (в том числе за период): SUM(amount) читается из индекса без обращения к таблице
+CREATE INDEX IF NOT EXISTS idx_transactions_type_date_amount
+    ON transactions (type, transaction_date, amount);
@@ -0,0 +1,30 @@
+-- Сводные таблицы по дням и месяцам. Обновляются в той же транзакции,
+-- что и вставка/удаление транзакций, category_id = 0 - транзакции без категории
+CREATE TABLE IF NOT EXISTS rollup_daily (
+    period_start DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    total DECIMAL(19, 2) NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (period_start, category_id, type)
+);
+
+CREATE TABLE IF NOT EXISTS rollup_monthly (
+    period_start DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    total DECIMAL(19, 2) NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (period_start, category_id, type)
+);
+
+-- Заполнение по уже существующим транзакциям
+INSERT INTO rollup_daily (period_start, category_id, type, total, tx_count)
+SELECT CAST(transaction_date AS DATE), COALESCE(category_id, 0), type, SUM(amount), COUNT(*)
+FROM transactions
+GROUP BY CAST(transaction_date AS DATE), COALESCE(category_id, 0), type;
+
+INSERT INTO rollup_monthly (period_start, category_id, type, total, tx_count)
+SELECT CAST(DATE_TRUNC('MONTH', transaction_date) AS DATE), COALESCE(category_id, 0), type, SUM(amount), COUNT(*)
+FROM transactions
+GROUP BY CAST(DATE_TRUNC('MONTH', transaction_date) AS DATE), COALESCE(category_id, 0), type;
@@ -0,0 +1,13 @@
+-- Итоги за все время по типу транзакции. Обновляются в той же транзакции,
+-- что и вставка/удаление, поэтому сумма и количество всегда совпадают с transactions
+CREATE TABLE IF NOT EXISTS running_totals (
+    type VARCHAR(20) PRIMARY KEY,
+    total DECIMAL(19, 2) NOT NULL,
+    tx_count BIGINT NOT NULL
+);
+
+-- Заполнение по уже существующим транзакциям
+INSERT INTO running_totals (type, total, tx_count)
+SELECT type, SUM(amount), COUNT(*)
+FROM transactions
+GROUP BY type;
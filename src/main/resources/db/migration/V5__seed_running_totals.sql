@@ -0,0 +1,7 @@
+-- Строки итогов создаются заранее для каждого типа транзакции, чтобы
+-- RollupDAO.apply только обновлял их: первая вставка типа не конкурирует
+-- за создание строки. Существующие итоги не меняются, скрипт повторяем
+MERGE INTO running_totals r
+USING (VALUES ('INCOME'), ('EXPENSE')) AS d(type)
+ON r.type = d.type
+WHEN NOT MATCHED THEN INSERT (type, total, tx_count) VALUES (d.type, 0, 0);
@@ -0,0 +1,104 @@
+package org.example.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Каждый тест работает со своей базой в памяти, отдельной от базы DatabaseConnection
+class SchemaMigratorTest {
+    private static final int MIGRATION_COUNT = 5;
+
+    private final SchemaMigrator migrator = new SchemaMigrator();
+    private Connection conn;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:migrator_" + System.nanoTime(), "sa", "");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void appliesAllMigrationsOnceInOrder() throws Exception {
+        assertEquals(MIGRATION_COUNT, migrator.migrate(conn));
+        assertEquals(List.of(1, 2, 3, 4, 5), appliedVersions());
+
+        assertEquals(0, migrator.migrate(conn));
+        assertEquals(List.of(1, 2, 3, 4, 5), appliedVersions());
+    }
+
+    @Test
+    void changedScriptIsRejected() throws Exception {
+        migrator.migrate(conn);
+        execute("UPDATE schema_version SET checksum = 'changed' WHERE version = 2");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> migrator.migrate(conn));
+        assertTrue(e.getMessage().contains("V2__transaction_indexes.sql"), e.getMessage());
+    }
+
+    @Test
+    void mismatchStopsBeforeLaterMigrations() throws Exception {
+        migrator.migrate(conn);
+        // V5 будто бы еще не применена, а V2 изменена: V5 не должна примениться
+        execute("DELETE FROM schema_version WHERE version = 5");
+        execute("UPDATE schema_version SET checksum = 'changed' WHERE version = 2");
+
+        assertThrows(IllegalStateException.class, () -> migrator.migrate(conn));
+        assertEquals(List.of(1, 2, 3, 4), appliedVersions());
+    }
+
+    @Test
+    void initializeDatabaseFailsOnMismatch() throws Exception {
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        db.initializeDatabase();
+        String checksum;
+        try (Connection shared = db.getConnection();
+             Statement stmt = shared.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT checksum FROM schema_version WHERE version = 1")) {
+            assertTrue(rs.next());
+            checksum = rs.getString(1);
+            stmt.executeUpdate("UPDATE schema_version SET checksum = 'changed' WHERE version = 1");
+        }
+        try {
+            assertThrows(IllegalStateException.class, db::initializeDatabase);
+        } finally {
+            try (Connection shared = db.getConnection();
+                 Statement stmt = shared.createStatement()) {
+                stmt.executeUpdate("UPDATE schema_version SET checksum = '" + checksum + "' WHERE version = 1");
+            }
+        }
+        db.initializeDatabase();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    private List<Integer> appliedVersions() throws SQLException {
+        List<Integer> versions = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version ORDER BY version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+}
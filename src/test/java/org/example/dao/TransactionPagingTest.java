@@ -0,0 +1,127 @@
+package org.example.dao;
+
+import org.example.model.Money;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// База в памяти задается в maven-surefire-plugin (db.url)
+class TransactionPagingTest {
+    private static final int PAGE_SIZE = 5;
+    private static final LocalDateTime TIE = LocalDateTime.of(2024, 3, 15, 12, 0);
+
+    private final TransactionDAO dao = new TransactionDAO();
+    private List<Transaction> expected;
+
+    @BeforeAll
+    static void initSchema() {
+        DatabaseConnection.getInstance().initializeDatabase();
+    }
+
+    @BeforeEach
+    void fill() throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM transactions");
+        }
+        List<Transaction> rows = new ArrayList<>();
+        // 12 строк с одной датой: границы страниц проходят внутри группы
+        for (int i = 0; i < 12; i++) {
+            rows.add(transaction(TIE));
+        }
+        for (int i = 1; i <= 6; i++) {
+            rows.add(transaction(TIE.minusDays(i)));
+            rows.add(transaction(TIE.plusHours(i)));
+        }
+        // Доли секунды в последнюю секунду дня
+        rows.add(transaction(TIE.withHour(23).withMinute(59).withSecond(59).withNano(500_000_000)));
+        for (Transaction transaction : rows) {
+            assertTrue(dao.addTransaction(transaction));
+        }
+        rows.sort(Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId).reversed());
+        expected = rows;
+    }
+
+    @Test
+    void nextPageVisitsEveryRowOnceAcrossTies() {
+        List<Long> seen = new ArrayList<>();
+        TransactionPage page = dao.getFirstPage(PAGE_SIZE);
+        seen.addAll(ids(page.getItems()));
+        while (page.hasNext()) {
+            assertEquals(PAGE_SIZE, page.getItems().size());
+            page = dao.nextPage(page.getNextCursor(), PAGE_SIZE);
+            seen.addAll(ids(page.getItems()));
+        }
+        assertEquals(ids(expected), seen);
+    }
+
+    @Test
+    void previousPageReturnsTheSameRowsBack() {
+        List<TransactionPage> pages = new ArrayList<>();
+        TransactionPage page = dao.getFirstPage(PAGE_SIZE);
+        pages.add(page);
+        while (page.hasNext()) {
+            page = dao.nextPage(page.getNextCursor(), PAGE_SIZE);
+            pages.add(page);
+        }
+        for (int i = pages.size() - 1; i > 0; i--) {
+            TransactionPage previous = dao.previousPage(pages.get(i).getPreviousCursor(), PAGE_SIZE);
+            assertEquals(ids(pages.get(i - 1).getItems()), ids(previous.getItems()), "страница " + (i - 1));
+        }
+    }
+
+    @Test
+    void periodPagesMatchCountAndOffsetPages() {
+        LocalDateTime start = TIE.minusDays(3).toLocalDate().atStartOfDay();
+        LocalDateTime end = TIE.toLocalDate().plusDays(1).atStartOfDay();
+        List<Long> inPeriod = new ArrayList<>();
+        for (Transaction transaction : expected) {
+            LocalDateTime date = transaction.getDate();
+            if (!date.isBefore(start) && date.isBefore(end)) {
+                inPeriod.add(transaction.getId());
+            }
+        }
+
+        // Строка в 23:59:59.5 входит и в подсчет, и в страницы: конец периода не включается
+        assertEquals(inPeriod.size(), dao.countTransactions(start, end));
+
+        List<Long> byCursor = new ArrayList<>();
+        TransactionPage page = dao.nextPage(start, end, null, PAGE_SIZE);
+        byCursor.addAll(ids(page.getItems()));
+        while (page.hasNext()) {
+            page = dao.nextPage(start, end, page.getNextCursor(), PAGE_SIZE);
+            byCursor.addAll(ids(page.getItems()));
+        }
+        assertEquals(inPeriod, byCursor);
+
+        List<Long> byOffset = new ArrayList<>();
+        for (long offset = 0; offset < inPeriod.size(); offset += PAGE_SIZE) {
+            byOffset.addAll(ids(dao.getPageAt(start, end, offset, PAGE_SIZE).getItems()));
+        }
+        assertEquals(inPeriod, byOffset);
+        assertFalse(dao.getPageAt(start, end, inPeriod.size(), PAGE_SIZE).hasNext());
+    }
+
+    private static Transaction transaction(LocalDateTime date) {
+        return new Transaction(null, TransactionType.EXPENSE, Money.parse("10.00"), null, date, "paging");
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void convertsBetweenBigDecimalAndMinorUnits() {
+        assertEquals(150050, Money.of(new BigDecimal("1500.50")).getMinorUnits());
+        assertEquals(150000, Money.of(new BigDecimal("1500")).getMinorUnits());
+        assertEquals(new BigDecimal("1500.50"), Money.ofMinor(150050).toBigDecimal());
+        assertEquals(new BigDecimal("-0.05"), Money.ofMinor(-5).toBigDecimal());
+        assertNull(Money.of(null));
+    }
+
+    @Test
+    void rejectsMoreThanTwoDecimalPlaces() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        // Нули за пределами копеек не меняют сумму
+        assertEquals(100, Money.of(new BigDecimal("1.000")).getMinorUnits());
+    }
+
+    @Test
+    void parsesDotAndCommaSeparators() {
+        assertEquals(Money.ofMinor(150050), Money.parse("1500.50"));
+        assertEquals(Money.ofMinor(150050), Money.parse(" 1500,50 "));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+    }
+
+    @Test
+    void addsSubtractsAndMultiplies() {
+        Money a = Money.parse("10.25");
+        Money b = Money.parse("0.75");
+        assertEquals(Money.ofMajor(11), a.plus(b));
+        assertEquals(Money.parse("9.50"), a.minus(b));
+        assertEquals(Money.parse("-9.50"), b.minus(a));
+        assertEquals(Money.parse("30.75"), a.times(3));
+        assertEquals(Money.parse("-10.25"), a.negate());
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).negate());
+        assertThrows(ArithmeticException.class, () -> Money.ofMajor(Long.MAX_VALUE / 10));
+    }
+
+    @Test
+    void divideRoundsHalfUpAwayFromZero() {
+        assertEquals(Money.ofMinor(33), Money.ofMinor(100).divide(3));
+        assertEquals(Money.ofMinor(67), Money.ofMinor(200).divide(3));
+        // Ровно половина копейки округляется от нуля
+        assertEquals(Money.ofMinor(2), Money.ofMinor(3).divide(2));
+        assertEquals(Money.ofMinor(-2), Money.ofMinor(-3).divide(2));
+        assertEquals(Money.ofMinor(-2), Money.ofMinor(3).divide(-2));
+        assertEquals(Money.ofMinor(2), Money.ofMinor(-3).divide(-2));
+        assertEquals(Money.ofMinor(1), Money.ofMinor(5).divide(4));
+        assertEquals(Money.ofMinor(-1), Money.ofMinor(-5).divide(4));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(1).divide(0));
+    }
+
+    @Test
+    void zeroIsShared() {
+        assertSame(Money.ZERO, Money.ofMinor(0));
+        assertSame(Money.ZERO, Money.parse("5.00").minus(Money.parse("5.00")));
+        assertTrue(Money.ZERO.isZero());
+    }
+
+    @Test
+    void comparesAndFormatsWithoutGrouping() {
+        assertTrue(Money.parse("0.01").compareTo(Money.ZERO) > 0);
+        assertEquals(-1, Money.parse("-0.01").signum());
+        assertTrue(Money.parse("0.01").isPositive());
+        assertEquals("1234567.89", Money.parse("1234567.89").toString());
+        assertEquals("-0.05", Money.ofMinor(-5).toString());
+        assertEquals(Money.parse("1.10").hashCode(), Money.ofMinor(110).hashCode());
+    }
+}
@@ -0,0 +1,322 @@
+package org.example.ui;
+
+import org.example.dao.PageCursor;
+import org.example.dao.TransactionPage;
+import org.example.model.Money;
+import org.example.model.Transaction;
+import org.example.model.TransactionType;
+import org.example.service.DataChangeEvent;
+import org.example.service.FinanceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import java.lang.reflect.InvocationTargetException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Размер страницы (ui.table.page.size = 4) задается в maven-surefire-plugin.
+// Строки: id 120, 110, ..., 10; даты идут тройками, поэтому группа одинаковых
+// дат (id 90, 80, 70) пересекает границу страниц 0 и 1.
+class LazyTransactionTableModelTest {
+    private static final int PAGE_SIZE = 4;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final long TIMEOUT_MS = 5_000;
+
+    private StubFinanceService service;
+    private LazyTransactionTableModel model;
+    private final AtomicReference<Exception> error = new AtomicReference<>();
+    private final List<TableModelEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new StubFinanceService();
+        for (int i = 1; i <= 12; i++) {
+            service.add(transaction(10L * i, BASE.plusHours((i + 2) / 3)));
+        }
+        model = onEdt(() -> new LazyTransactionTableModel(service, loading -> { }, error::set,
+                LazyTransactionTableModel.Column.ID));
+        model.addTableModelListener(events::add);
+        reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void reloadReadsOnlyFirstPage() throws Exception {
+        assertEquals(12, (int) onEdt(model::getRowCount));
+        assertEquals(1, (int) onEdt(model::getCachedPageCount));
+        assertEquals(service.ids().subList(0, PAGE_SIZE), ids(cachedRows(PAGE_SIZE)));
+        assertNull(onEdt(() -> model.getTransactionAt(PAGE_SIZE)));
+    }
+
+    @Test
+    void insertAtPageBoundaryInsideTieShiftsFollowingPages() throws Exception {
+        loadRows(12);
+        // Та же дата, что у 90 и 80: строка встает ровно на начало страницы 1
+        Transaction added = transaction(85, BASE.plusHours(3));
+        service.add(added);
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionsAdded(List.of(added)))));
+        assertEquals(13, (int) onEdt(model::getRowCount));
+        assertInserted(PAGE_SIZE);
+        assertEquals(service.ids(), ids(loadRows(13)));
+    }
+
+    @Test
+    void insertInsidePageKeepsOrder() throws Exception {
+        loadRows(12);
+        Transaction added = transaction(105, BASE.plusHours(4));
+        service.add(added);
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionsAdded(List.of(added)))));
+        assertInserted(2);
+        assertEquals(service.ids(), ids(loadRows(13)));
+    }
+
+    @Test
+    void insertAfterLastRowWhenAllPagesRead() throws Exception {
+        loadRows(12);
+        Transaction added = transaction(5, BASE);
+        service.add(added);
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionsAdded(List.of(added)))));
+        assertInserted(12);
+        assertEquals(service.ids(), ids(loadRows(13)));
+    }
+
+    @Test
+    void insertIntoUnreadPageRequiresReload() throws Exception {
+        // Прочитана только первая страница: место строки 45 неизвестно
+        Transaction added = transaction(45, BASE.plusHours(2));
+        service.add(added);
+
+        assertFalse(onEdt(() -> model.applyChange(DataChangeEvent.transactionsAdded(List.of(added)))));
+    }
+
+    @Test
+    void insertOutsideRangeIsIgnored() throws Exception {
+        // Период [1ч, 4ч): строки с датой ровно 4ч в него не входят
+        onEdt(() -> {
+            model.setRange(BASE.plusHours(1), BASE.plusHours(4));
+            return null;
+        });
+        reload();
+        assertEquals(9, (int) onEdt(model::getRowCount));
+
+        Transaction added = transaction(125, BASE.plusHours(4));
+        service.add(added);
+        events.clear();
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionsAdded(List.of(added)))));
+        assertEquals(9, (int) onEdt(model::getRowCount));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void deletePullsFirstRowOfNextPageAndRefetchesTail() throws Exception {
+        // Страницы 0 и 1 в кэше, страница 2 - нет
+        loadRows(2 * PAGE_SIZE);
+        Transaction removed = service.remove(110);
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionDeleted(removed))));
+        assertEquals(11, (int) onEdt(model::getRowCount));
+        assertDeleted(1);
+        List<Long> expected = service.ids();
+        assertEquals(expected.subList(0, 2 * PAGE_SIZE - 1), ids(cachedRows(2 * PAGE_SIZE - 1)));
+        // Последняя строка страницы 1 была на странице 2 и дочитывается
+        assertNull(onEdt(() -> model.getTransactionAt(2 * PAGE_SIZE - 1)));
+        assertEquals(expected, ids(loadRows(11)));
+    }
+
+    @Test
+    void deleteAtPageBoundaryWithAllPagesRead() throws Exception {
+        loadRows(12);
+        Transaction removed = service.remove(80);
+
+        assertTrue(onEdt(() -> model.applyChange(DataChangeEvent.transactionDeleted(removed))));
+        assertDeleted(PAGE_SIZE);
+        assertEquals(service.ids(), ids(cachedRows(11)));
+    }
+
+    @Test
+    void deleteOfUnreadRowRequiresReload() throws Exception {
+        Transaction removed = service.remove(30);
+
+        assertFalse(onEdt(() -> model.applyChange(DataChangeEvent.transactionDeleted(removed))));
+    }
+
+    private void reload() throws Exception {
+        onEdt(() -> {
+            model.reload();
+            return null;
+        });
+        await(() -> !model.isLoading());
+        events.clear();
+    }
+
+    // Читает строки [0, count), дожидаясь фоновой загрузки страниц
+    private List<Transaction> loadRows(int count) throws Exception {
+        List<Transaction> rows = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            int index = row;
+            await(() -> model.getTransactionAt(index) != null);
+            rows.add(onEdt(() -> model.getTransactionAt(index)));
+        }
+        return rows;
+    }
+
+    // Строки, которые уже есть в кэше, без обращения к сервису
+    private List<Transaction> cachedRows(int count) throws Exception {
+        List<Transaction> rows = new ArrayList<>();
+        for (int row = 0; row < count; row++) {
+            int index = row;
+            Transaction transaction = onEdt(() -> model.getTransactionAt(index));
+            if (transaction == null) {
+                fail("строка " + row + " не в кэше");
+            }
+            rows.add(transaction);
+        }
+        return rows;
+    }
+
+    private void assertInserted(int row) {
+        assertRowEvent(TableModelEvent.INSERT, row);
+    }
+
+    private void assertDeleted(int row) {
+        assertRowEvent(TableModelEvent.DELETE, row);
+    }
+
+    private void assertRowEvent(int type, int row) {
+        TableModelEvent event = events.stream()
+                .filter(e -> e.getType() == type)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("нет события изменения строк"));
+        assertEquals(row, event.getFirstRow());
+        assertEquals(row, event.getLastRow());
+    }
+
+    private void await(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!onEdt(condition)) {
+            if (error.get() != null) {
+                throw error.get();
+            }
+            if (System.currentTimeMillis() > deadline) {
+                fail("модель не дождалась загрузки за " + TIMEOUT_MS + " мс");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static <T> T onEdt(Callable<T> action) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result.set(action.call());
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            });
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    private static Transaction transaction(long id, LocalDateTime date) {
+        return new Transaction(id, TransactionType.EXPENSE, Money.ofMajor(1), null, date, null);
+    }
+
+    private static List<Long> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getId).collect(Collectors.toList());
+    }
+
+    // Строки в памяти вместо базы: периоды [start, end) и порядок (дата, id) по убыванию
+    private static class StubFinanceService extends FinanceService {
+        private static final Comparator<Transaction> ORDER =
+                Comparator.comparing(Transaction::getDate).thenComparing(Transaction::getId).reversed();
+
+        private final List<Transaction> rows = new ArrayList<>();
+
+        synchronized void add(Transaction transaction) {
+            rows.add(transaction);
+            rows.sort(ORDER);
+        }
+
+        synchronized Transaction remove(long id) {
+            for (Transaction transaction : rows) {
+                if (transaction.getId() == id) {
+                    rows.remove(transaction);
+                    return transaction;
+                }
+            }
+            throw new IllegalArgumentException("нет строки " + id);
+        }
+
+        synchronized List<Long> ids() {
+            return LazyTransactionTableModelTest.ids(rows);
+        }
+
+        @Override
+        public synchronized int getTransactionCount(LocalDateTime start, LocalDateTime end) {
+            return inRange(start, end).size();
+        }
+
+        @Override
+        public synchronized TransactionPage getTransactionPage(LocalDateTime start, LocalDateTime end,
+                                                               PageCursor after, int pageSize) {
+            List<Transaction> period = inRange(start, end);
+            int from = 0;
+            if (after != null) {
+                Transaction key = new Transaction(after.getId(), null, null, null, after.getDate(), null);
+                while (from < period.size() && ORDER.compare(period.get(from), key) <= 0) {
+                    from++;
+                }
+            }
+            return page(period, from, pageSize);
+        }
+
+        @Override
+        public synchronized TransactionPage getTransactionPageAt(LocalDateTime start, LocalDateTime end,
+                                                                 long offset, int pageSize) {
+            List<Transaction> period = inRange(start, end);
+            return page(period, (int) Math.min(offset, period.size()), pageSize);
+        }
+
+        private List<Transaction> inRange(LocalDateTime start, LocalDateTime end) {
+            return rows.stream()
+                    .filter(t -> (start == null || !t.getDate().isBefore(start))
+                            && (end == null || t.getDate().isBefore(end)))
+                    .collect(Collectors.toList());
+        }
+
+        private static TransactionPage page(List<Transaction> period, int from, int pageSize) {
+            int to = Math.min(period.size(), from + pageSize);
+            return new TransactionPage(new ArrayList<>(period.subList(from, to)), to < period.size(), from > 0);
+        }
+    }
+}